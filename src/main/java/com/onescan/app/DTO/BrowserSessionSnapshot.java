@@ -0,0 +1,61 @@
+package com.onescan.app.DTO;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.Cookie;
+
+/**
+ * Cookies et localStorage d'une session connectée, sauvegardés sur disque pour
+ * être réinjectés dans un nouveau navigateur.
+ */
+public record BrowserSessionSnapshot(
+        long savedAt,
+        String origin,
+        List<CookieSnapshot> cookies,
+        Map<String, String> localStorage) {
+
+    public record CookieSnapshot(
+            String name,
+            String value,
+            String domain,
+            String path,
+            Long expiry,
+            boolean secure,
+            boolean httpOnly,
+            String sameSite) {
+
+        public static CookieSnapshot fromCookie(Cookie cookie) {
+            return new CookieSnapshot(
+                    cookie.getName(),
+                    cookie.getValue(),
+                    cookie.getDomain(),
+                    cookie.getPath(),
+                    cookie.getExpiry() != null ? cookie.getExpiry().getTime() : null,
+                    cookie.isSecure(),
+                    cookie.isHttpOnly(),
+                    cookie.getSameSite());
+        }
+
+        public Cookie toCookie() {
+            Cookie.Builder builder = new Cookie.Builder(name, value)
+                    .path(path)
+                    .isSecure(secure)
+                    .isHttpOnly(httpOnly);
+            if (domain != null) {
+                builder.domain(domain);
+            }
+            if (expiry != null) {
+                builder.expiresOn(new java.util.Date(expiry));
+            }
+            if (sameSite != null) {
+                builder.sameSite(sameSite);
+            }
+            return builder.build();
+        }
+
+        public boolean isExpired(long now) {
+            return expiry != null && expiry < now;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.onescan.app.DTO;
+
+import com.onescan.app.Entity.Plateforme;
+
+public record BrowserStats(
+        Plateforme plateforme,
+        int navigateurs,
+        int empruntes,
+        int inactifs,
+        long recycles,
+        long rssMo) {
+}
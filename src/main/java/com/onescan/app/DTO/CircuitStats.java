@@ -0,0 +1,20 @@
+package com.onescan.app.DTO;
+
+import com.onescan.app.Entity.Plateforme;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * État du disjoncteur d'un compte et délais d'attente adaptatifs en vigueur
+ * (ms) de sa plateforme, par point d'appel.
+ */
+public record CircuitStats(
+        Plateforme plateforme,
+        String compte,
+        String etat,
+        int echecsConsecutifs,
+        Instant ouvertJusqua,
+        long rejets,
+        Map<String, Long> delaisMs) {
+}
@@ -0,0 +1,13 @@
+package com.onescan.app.DTO;
+
+/**
+ * File de tâches de scraping : tâches par état (tous nœuds confondus) et
+ * tâches exécutées par ce nœud.
+ */
+public record JobQueueStats(
+        String noeud,
+        long enAttente,
+        long enCours,
+        long abandonnees,
+        int enCoursSurCeNoeud) {
+}
@@ -0,0 +1,17 @@
+package com.onescan.app.DTO;
+
+import com.onescan.app.Entity.Plateforme;
+
+import java.util.Set;
+
+/**
+ * Temps de chargement des pages avec et sans blocage des ressources.
+ */
+public record PageLoadStats(
+        Plateforme plateforme,
+        Set<String> ressourcesBloquees,
+        long chargementsBloques,
+        long totalMsBloques,
+        long chargementsComplets,
+        long totalMsComplets) {
+}
@@ -0,0 +1,46 @@
+package com.onescan.app.DTO;
+
+import java.util.List;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+public record PlatformSyncResult(
+        Plateforme plateforme,
+        String statut,
+        int total,
+        long dureeMs,
+        List<Commande> commandes,
+        String erreur) {
+
+    public static PlatformSyncResult success(Plateforme plateforme, List<Commande> commandes, long dureeMs) {
+        return new PlatformSyncResult(plateforme, "OK", commandes.size(), dureeMs, commandes, null);
+    }
+
+    public static PlatformSyncResult timeout(Plateforme plateforme, long dureeMs) {
+        return new PlatformSyncResult(plateforme, "TIMEOUT", 0, dureeMs, List.of(),
+                "Synchronisation toujours en cours, les commandes seront sauvegardées à la fin");
+    }
+
+    public static PlatformSyncResult alreadyRunning(Plateforme plateforme) {
+        return new PlatformSyncResult(plateforme, "EN_COURS", 0, 0, List.of(),
+                "Une synchronisation de cette plateforme est déjà en cours");
+    }
+
+    public static PlatformSyncResult queued(Plateforme plateforme) {
+        return new PlatformSyncResult(plateforme, "EN_FILE", 0, 0, List.of(),
+                "Synchronisation confiée à la file de tâches");
+    }
+
+    public static PlatformSyncResult heldElsewhere(Plateforme plateforme, String erreur) {
+        return new PlatformSyncResult(plateforme, "AUTRE_NOEUD", 0, 0, List.of(), erreur);
+    }
+
+    public static PlatformSyncResult unavailable(Plateforme plateforme, String erreur) {
+        return new PlatformSyncResult(plateforme, "INDISPONIBLE", 0, 0, List.of(), erreur);
+    }
+
+    public static PlatformSyncResult failure(Plateforme plateforme, long dureeMs, String erreur) {
+        return new PlatformSyncResult(plateforme, "ERREUR", 0, dureeMs, List.of(), erreur);
+    }
+}
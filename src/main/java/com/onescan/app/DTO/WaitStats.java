@@ -0,0 +1,12 @@
+package com.onescan.app.DTO;
+
+import com.onescan.app.Entity.Plateforme;
+
+public record WaitStats(
+        Plateforme plateforme,
+        long attentes,
+        long timeouts,
+        long totalMs,
+        long stabilisations,
+        long stabilisationMs) {
+}
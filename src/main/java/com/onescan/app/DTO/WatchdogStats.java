@@ -0,0 +1,14 @@
+package com.onescan.app.DTO;
+
+import java.time.Instant;
+
+/**
+ * Dernier passage du watchdog Chrome : processus chromedriver/Chrome vivants,
+ * leur mémoire totale et le nombre d'orphelins tués depuis le démarrage.
+ */
+public record WatchdogStats(
+        Instant dernierPassage,
+        int processus,
+        long rssMo,
+        long orphelinsTues) {
+}
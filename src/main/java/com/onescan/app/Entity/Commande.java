@@ -2,17 +2,26 @@ package com.onescan.app.Entity;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "commandes")
+@Table(name = "commandes", uniqueConstraints = @UniqueConstraint(name = "uk_commande_owner_external_id",
+        columnNames = { "plateforme", "external_id", "owner_id" }))
 public class Commande {
 
+    // Propriétaire des commandes du compte du .env : jamais null, pour que la
+    // contrainte d'unicité s'applique aussi à ces lignes (MySQL ne compare pas les NULL)
+    public static final long ENV_OWNER_ID = 0L;
+
+    // Identifiants alloués par blocs (table commande_seq sous MySQL) : contrairement
+    // à IDENTITY, Hibernate peut regrouper les INSERT par lots de hibernate.jdbc.batch_size
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "commande_seq")
+    @SequenceGenerator(name = "commande_seq", sequenceName = "commande_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
-    @Column(name = "external_id", unique = true)
+    @Column(name = "external_id")
     private Long externalId;
 
     @Column(name = "ref_patient")
@@ -34,12 +43,24 @@ public class Commande {
     @Column(name = "commentaire")
     private String commentaire;
 
+    // Date de la dernière lecture de la page de détail (null : jamais lue)
+    @Column(name = "commentaire_fetched_at")
+    private LocalDateTime commentaireFetchedAt;
+
+    // Empreinte des cellules de la liste lors de cette lecture
+    @Column(name = "list_fingerprint", length = 64)
+    private String listFingerprint;
+
     @Column(name = "date_echeance")
     private LocalDate dateEcheance;
 
     @Column(name = "vu")
     private Boolean vu;
 
+    // Utilisateur dont le compte plateforme a produit la commande (ENV_OWNER_ID : compte du .env)
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId = ENV_OWNER_ID;
+
     public Commande() {
 
     }
@@ -124,6 +145,22 @@ public class Commande {
         this.commentaire = commentaire;
     }
 
+    public LocalDateTime getCommentaireFetchedAt() {
+        return commentaireFetchedAt;
+    }
+
+    public void setCommentaireFetchedAt(LocalDateTime commentaireFetchedAt) {
+        this.commentaireFetchedAt = commentaireFetchedAt;
+    }
+
+    public String getListFingerprint() {
+        return listFingerprint;
+    }
+
+    public void setListFingerprint(String listFingerprint) {
+        this.listFingerprint = listFingerprint;
+    }
+
     public LocalDate getDateEcheance() {
         return dateEcheance;
     }
@@ -139,4 +176,12 @@ public class Commande {
     public void setVu(Boolean vu) {
         this.vu = vu;
     }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(Long ownerId) {
+        this.ownerId = ownerId;
+    }
 }
@@ -0,0 +1,80 @@
+package com.onescan.app.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tâche de scraping en file, prise par le worker de n'importe quel nœud. Un
+ * worker la réserve jusqu'à leaseUntil et prolonge ce bail tant qu'il
+ * travaille ; un bail expiré (nœud arrêté) rend la tâche à nouveau disponible.
+ */
+@Data
+@Entity
+@Table(name = "scrape_jobs", indexes = {
+        @Index(name = "idx_scrape_job_status_available", columnList = "status, available_at"),
+        @Index(name = "idx_scrape_job_status_lease", columnList = "status, lease_until") },
+        uniqueConstraints = @UniqueConstraint(name = "uk_scrape_job_active_key", columnNames = "active_key"))
+public class ScrapeJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 32, nullable = false)
+    private ScrapeJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16, nullable = false)
+    private ScrapeJobStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "plateforme", length = 32, nullable = false)
+    private Plateforme plateforme;
+
+    // Compte plateforme (Platform.id), null pour le compte du .env
+    @Column(name = "platform_id")
+    private Long platformId;
+
+    @Column(name = "tenant_key", length = 64, nullable = false)
+    private String tenantKey;
+
+    // Type et compte tant que la tâche est en attente ou en cours, null ensuite :
+    // l'index unique empêche deux synchronisations actives du même compte
+    @Column(name = "active_key", length = 100)
+    private String activeKey;
+
+    // Paramètres propres au type, en JSON
+    @Lob
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "max_attempts", nullable = false)
+    private int maxAttempts;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "lease_owner", length = 128)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,9 @@
+package com.onescan.app.Entity;
+
+public enum ScrapeJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    // Abandonné après scrape.jobs.max-attempts essais
+    DEAD
+}
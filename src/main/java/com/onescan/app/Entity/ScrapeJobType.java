@@ -0,0 +1,8 @@
+package com.onescan.app.Entity;
+
+public enum ScrapeJobType {
+    // Liste des commandes d'un compte
+    LIST_SYNC,
+    // Commentaires MeditLink d'un lot de lignes de l'inbox
+    COMMENT_FETCH
+}
@@ -0,0 +1,37 @@
+package com.onescan.app.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bail exclusif sur une ressource du cluster (synchronisation d'un compte,
+ * planificateur). Le jeton de fencing augmente à chaque changement de
+ * détenteur : un nœud qui a perdu son bail sans le savoir présente un jeton
+ * périmé et ses écritures sont refusées.
+ */
+@Data
+@Entity
+@Table(name = "sync_leases")
+public class SyncLease {
+
+    @Id
+    @Column(name = "lock_key", length = 64)
+    private String lockKey;
+
+    @Column(name = "owner", length = 128)
+    private String owner;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "acquired_at")
+    private LocalDateTime acquiredAt;
+
+    @Column(name = "renewed_at")
+    private LocalDateTime renewedAt;
+}
@@ -0,0 +1,42 @@
+package com.onescan.app.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Point atteint par la dernière synchronisation d'un compte plateforme
+ * ({@code Tenant.key()}) : les lignes reçues avant lastDateReception ne sont
+ * plus relues, sauf lors d'une réconciliation complète.
+ */
+@Data
+@Entity
+@Table(name = "sync_watermarks")
+public class SyncWatermark {
+
+    @Id
+    @Column(name = "tenant_key", length = 64)
+    private String tenantKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "plateforme", length = 32)
+    private Plateforme plateforme;
+
+    @Column(name = "last_date_reception")
+    private LocalDate lastDateReception;
+
+    @Column(name = "last_external_id")
+    private Long lastExternalId;
+
+    @Column(name = "last_full_sync_at")
+    private LocalDateTime lastFullSyncAt;
+
+    // Fin de la dernière synchronisation sans erreur, même si elle n'a rien sauvegardé
+    @Column(name = "last_success_at")
+    private LocalDateTime lastSuccessAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
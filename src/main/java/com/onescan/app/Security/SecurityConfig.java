@@ -2,6 +2,7 @@ package com.onescan.app.Security;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,6 +16,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.onescan.app.Entity.Role;
+
 import java.util.Arrays;
 
 @Configuration
@@ -40,6 +43,14 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/user/**").authenticated()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/public/**").permitAll()
+                        // Synchronisation globale et état des comptes de tous les laboratoires :
+                        // administration seulement ; chacun peut relancer ses propres comptes
+                        .requestMatchers(HttpMethod.POST, "/api/sync/accounts/*/refresh").authenticated()
+                        .requestMatchers("/api/sync/**").hasAuthority(Role.ADMIN.name())
+                        // Seule la sonde de santé est publique ; les métriques exposent
+                        // l'activité des comptes et sont réservées aux administrateurs
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasAuthority(Role.ADMIN.name())
                         .anyRequest().authenticated());
 
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
@@ -1,9 +1,14 @@
 package com.onescan.app.controllers;
 
 import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
 import com.onescan.app.services.DexisIsConnectSeleniumService;
+import com.onescan.app.services.PlatformSyncService;
+import com.onescan.app.services.Tenant;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -13,17 +18,25 @@ import java.util.List;
 public class DexisIsConnectController {
 
     private final DexisIsConnectSeleniumService dexisService;
+    private final PlatformSyncService platformSyncService;
 
-    public DexisIsConnectController(DexisIsConnectSeleniumService dexisService) {
+    public DexisIsConnectController(DexisIsConnectSeleniumService dexisService,
+            PlatformSyncService platformSyncService) {
         this.dexisService = dexisService;
+        this.platformSyncService = platformSyncService;
     }
 
     /**
      * Connexion à Dexis via Selenium.
+     * Agit sur le compte Dexis de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/login")
-    public ResponseEntity<String> login() {
-        String result = dexisService.login();
+    public ResponseEntity<String> login(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.DEXIS, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Dexis enregistré.");
+        }
+        String result = dexisService.runAs(tenant, dexisService::login);
 
         if (result.startsWith("Connexion réussie") || result.equals("Déjà connecté.")) {
             return ResponseEntity.ok(result);
@@ -34,33 +47,69 @@ public class DexisIsConnectController {
 
     /**
      * Vérifie le statut de connexion à Dexis.
+     * Agit sur le compte Dexis de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @GetMapping("/status")
-    public ResponseEntity<String> status() {
-        boolean connected = dexisService.isLoggedIn();
+    public ResponseEntity<String> status(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.DEXIS, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Dexis enregistré.");
+        }
+        boolean connected = dexisService.runAs(tenant, dexisService::isLoggedIn);
         return ResponseEntity.ok(connected ? "Connecté" : "Non connecté");
     }
 
     /**
-     * Récupération des commandes depuis Dexis.
+     * Commandes Dexis déjà synchronisées du compte de l'utilisateur connecté,
+     * lues en base. L'en-tête X-Last-Synced-At donne la fin de la dernière
+     * synchronisation réussie. 404 si l'utilisateur n'a pas de compte Dexis.
      */
     @GetMapping("/commandes")
-    public ResponseEntity<?> getCommandes() {
-        List<Commande> commandes = dexisService.fetchCommandes();
+    public ResponseEntity<?> getCommandes(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.DEXIS, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Dexis enregistré.");
+        }
+        List<Commande> commandes = platformSyncService.getStoredCommandes(tenant);
+        String lastSyncedAt = platformSyncService.getLastSyncedAt(tenant)
+                .map(Object::toString)
+                .orElse("");
 
         if (commandes.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Aucune commande trouvée.");
+            return ResponseEntity.status(HttpStatus.NO_CONTENT)
+                    .header("X-Last-Synced-At", lastSyncedAt)
+                    .body("Aucune commande synchronisée pour Dexis.");
         }
 
-        return ResponseEntity.ok(commandes);
+        return ResponseEntity.ok()
+                .header("X-Last-Synced-At", lastSyncedAt)
+                .body(commandes);
+    }
+
+    /**
+     * Lance immédiatement une synchronisation Dexis en arrière-plan.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refresh(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.DEXIS, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Dexis enregistré.");
+        }
+        platformSyncService.refresh(tenant);
+        return ResponseEntity.accepted().body("Synchronisation Dexis lancée.");
     }
 
     /**
      * Déconnexion de Dexis.
+     * Agit sur le compte Dexis de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
-        String result = dexisService.logout();
+    public ResponseEntity<String> logout(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.DEXIS, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Dexis enregistré.");
+        }
+        String result = dexisService.runAs(tenant, dexisService::logout);
 
         if (result.equals("Déconnexion réussie.")) {
             return ResponseEntity.ok(result);
@@ -68,4 +117,8 @@ public class DexisIsConnectController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
         }
     }
-}
+
+    private static String username(UserDetails principal) {
+        return principal != null ? principal.getUsername() : null;
+    }
+}
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.onescan.app.controllers;
 
 import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
 import com.onescan.app.services.IteroSeleniumService;
+import com.onescan.app.services.PlatformSyncService;
+import com.onescan.app.services.Tenant;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -13,17 +18,24 @@ import java.util.List;
 public class IteroController {
 
     private final IteroSeleniumService iteroService;
+    private final PlatformSyncService platformSyncService;
 
-    public IteroController(IteroSeleniumService iteroService) {
+    public IteroController(IteroSeleniumService iteroService, PlatformSyncService platformSyncService) {
         this.iteroService = iteroService;
+        this.platformSyncService = platformSyncService;
     }
 
     /**
      * Lance la connexion à la plateforme Itero.
+     * Agit sur le compte Itero de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/login")
-    public ResponseEntity<String> login() {
-        String result = iteroService.login();
+    public ResponseEntity<String> login(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.ITERO, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Itero enregistré.");
+        }
+        String result = iteroService.runAs(tenant, iteroService::login);
 
         if (result.startsWith("Connexion réussie") || result.equals("Déjà connecté.")) {
             return ResponseEntity.ok(result);
@@ -34,33 +46,69 @@ public class IteroController {
 
     /**
      * Vérifie l'état de connexion actuel à Itero.
+     * Agit sur le compte Itero de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @GetMapping("/status")
-    public ResponseEntity<String> status() {
-        boolean connected = iteroService.isLoggedIn();
+    public ResponseEntity<String> status(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.ITERO, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Itero enregistré.");
+        }
+        boolean connected = iteroService.runAs(tenant, iteroService::isLoggedIn);
         return ResponseEntity.ok(connected ? "Connecté" : "Non connecté");
     }
 
     /**
-     * Récupère les commandes disponibles sur Itero.
+     * Commandes Itero déjà synchronisées du compte de l'utilisateur connecté,
+     * lues en base. L'en-tête X-Last-Synced-At donne la fin de la dernière
+     * synchronisation réussie. 404 si l'utilisateur n'a pas de compte Itero.
      */
     @GetMapping("/commandes")
-    public ResponseEntity<?> getCommandes() {
-        List<Commande> commandes = iteroService.fetchCommandes();
+    public ResponseEntity<?> getCommandes(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.ITERO, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Itero enregistré.");
+        }
+        List<Commande> commandes = platformSyncService.getStoredCommandes(tenant);
+        String lastSyncedAt = platformSyncService.getLastSyncedAt(tenant)
+                .map(Object::toString)
+                .orElse("");
 
         if (commandes.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Aucune commande récupérée.");
+            return ResponseEntity.status(HttpStatus.NO_CONTENT)
+                    .header("X-Last-Synced-At", lastSyncedAt)
+                    .body("Aucune commande synchronisée pour Itero.");
         }
 
-        return ResponseEntity.ok(commandes);
+        return ResponseEntity.ok()
+                .header("X-Last-Synced-At", lastSyncedAt)
+                .body(commandes);
+    }
+
+    /**
+     * Lance immédiatement une synchronisation Itero en arrière-plan.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refresh(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.ITERO, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Itero enregistré.");
+        }
+        platformSyncService.refresh(tenant);
+        return ResponseEntity.accepted().body("Synchronisation Itero lancée.");
     }
 
     /**
      * Déconnecte et ferme la session utilisateur actuelle.
+     * Agit sur le compte Itero de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
-        String result = iteroService.logout();
+    public ResponseEntity<String> logout(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.ITERO, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte Itero enregistré.");
+        }
+        String result = iteroService.runAs(tenant, iteroService::logout);
 
         if (result.equals("Déconnexion réussie.")) {
             return ResponseEntity.ok(result);
@@ -68,4 +116,8 @@ public class IteroController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
         }
     }
-}
+
+    private static String username(UserDetails principal) {
+        return principal != null ? principal.getUsername() : null;
+    }
+}
\ No newline at end of file
@@ -1,9 +1,15 @@
 package com.onescan.app.controllers;
 
 import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
 import com.onescan.app.services.MeditLinkSeleniumService;
+import com.onescan.app.services.PlatformSyncService;
+import com.onescan.app.services.PlatformUnavailableException;
+import com.onescan.app.services.Tenant;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,17 +20,25 @@ import java.util.Map;
 public class MeditLinkController {
 
     private final MeditLinkSeleniumService meditLinkService;
+    private final PlatformSyncService platformSyncService;
 
-    public MeditLinkController(MeditLinkSeleniumService meditLinkService) {
+    public MeditLinkController(MeditLinkSeleniumService meditLinkService,
+            PlatformSyncService platformSyncService) {
         this.meditLinkService = meditLinkService;
+        this.platformSyncService = platformSyncService;
     }
 
     /**
      * Endpoint pour se connecter à MeditLink
+     * Agit sur le compte MeditLink de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/login")
-    public ResponseEntity<String> login() {
-        String result = meditLinkService.login();
+    public ResponseEntity<String> login(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.MEDITLINK, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte MeditLink enregistré.");
+        }
+        String result = meditLinkService.runAs(tenant, meditLinkService::login);
 
         if (result.startsWith("Connexion réussie") || result.equals("Déjà connecté.")) {
             return ResponseEntity.ok(result);
@@ -35,34 +49,69 @@ public class MeditLinkController {
 
     /**
      * Vérifie le statut de connexion à MeditLink
+     * Agit sur le compte MeditLink de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @GetMapping("/status")
-    public ResponseEntity<String> status() {
-        boolean connected = meditLinkService.isLoggedIn();
+    public ResponseEntity<String> status(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.MEDITLINK, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte MeditLink enregistré.");
+        }
+        boolean connected = meditLinkService.runAs(tenant, meditLinkService::isLoggedIn);
         return ResponseEntity.ok("Statut MeditLink : " + (connected ? "Connecté" : "Non connecté"));
     }
 
     /**
-     * Récupère la liste des commandes/patients depuis MeditLink
+     * Commandes MeditLink déjà synchronisées du compte de l'utilisateur connecté,
+     * lues en base. L'en-tête X-Last-Synced-At donne la fin de la dernière
+     * synchronisation réussie. 404 si l'utilisateur n'a pas de compte MeditLink.
      */
     @GetMapping("/commandes")
-    public ResponseEntity<?> getCommandes() {
-        List<Commande> commandes = meditLinkService.fetchCommandes();
+    public ResponseEntity<?> getCommandes(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.MEDITLINK, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte MeditLink enregistré.");
+        }
+        List<Commande> commandes = platformSyncService.getStoredCommandes(tenant);
+        String lastSyncedAt = platformSyncService.getLastSyncedAt(tenant)
+                .map(Object::toString)
+                .orElse("");
 
         if (commandes.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT)
-                    .body("Aucune commande trouvée sur MeditLink ou problème de connexion");
+                    .header("X-Last-Synced-At", lastSyncedAt)
+                    .body("Aucune commande synchronisée pour MeditLink.");
         }
 
-        return ResponseEntity.ok(commandes);
+        return ResponseEntity.ok()
+                .header("X-Last-Synced-At", lastSyncedAt)
+                .body(commandes);
+    }
+
+    /**
+     * Lance immédiatement une synchronisation MeditLink en arrière-plan.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refresh(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.MEDITLINK, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte MeditLink enregistré.");
+        }
+        platformSyncService.refresh(tenant);
+        return ResponseEntity.accepted().body("Synchronisation MeditLink lancée.");
     }
 
     /**
      * Déconnexion de MeditLink
+     * Agit sur le compte MeditLink de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
-        String result = meditLinkService.logout();
+    public ResponseEntity<String> logout(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.MEDITLINK, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte MeditLink enregistré.");
+        }
+        String result = meditLinkService.runAs(tenant, meditLinkService::logout);
 
         if (result.equals("Déconnexion réussie.")) {
             return ResponseEntity.ok(result);
@@ -72,12 +121,18 @@ public class MeditLinkController {
     }
 
     /**
-     * Récupère le commentaire d'une commande spécifique par son ID externe
+     * Récupère le commentaire d'une commande du compte de l'utilisateur connecté
+     * par son ID externe
      */
     @GetMapping("/commentaire/{externalId}")
-    public ResponseEntity<?> getCommentaire(@PathVariable Long externalId) {
+    public ResponseEntity<?> getCommentaire(@PathVariable Long externalId,
+            @AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.MEDITLINK, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte MeditLink enregistré.");
+        }
         try {
-            String commentaire = meditLinkService.getCommentaire(externalId);
+            String commentaire = meditLinkService.getCommentaire(tenant, externalId);
 
             if (commentaire == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -92,6 +147,8 @@ public class MeditLinkController {
                     "externalId", externalId,
                     "commentaire", commentaire));
 
+        } catch (PlatformUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Erreur lors de la récupération du commentaire: " + e.getMessage());
@@ -99,12 +156,17 @@ public class MeditLinkController {
     }
 
     /**
-     * Récupère tous les commentaires pour toutes les commandes
+     * Récupère tous les commentaires des commandes du compte de l'utilisateur
+     * connecté
      */
     @GetMapping("/commentaires")
-    public ResponseEntity<?> getAllCommentaires() {
+    public ResponseEntity<?> getAllCommentaires(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.MEDITLINK, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte MeditLink enregistré.");
+        }
         try {
-            Map<Long, String> commentaires = meditLinkService.getAllCommentaires();
+            Map<Long, String> commentaires = meditLinkService.getAllCommentaires(tenant);
 
             if (commentaires.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT)
@@ -121,4 +183,7 @@ public class MeditLinkController {
         }
     }
 
+    private static String username(UserDetails principal) {
+        return principal != null ? principal.getUsername() : null;
+    }
 }
\ No newline at end of file
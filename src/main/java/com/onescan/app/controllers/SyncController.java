@@ -0,0 +1,138 @@
+package com.onescan.app.controllers;
+
+import com.onescan.app.DTO.BrowserStats;
+import com.onescan.app.DTO.CircuitStats;
+import com.onescan.app.DTO.JobQueueStats;
+import com.onescan.app.DTO.PageLoadStats;
+import com.onescan.app.DTO.PlatformSyncResult;
+import com.onescan.app.DTO.WaitStats;
+import com.onescan.app.DTO.WatchdogStats;
+import com.onescan.app.Entity.SyncLease;
+import com.onescan.app.services.ChromeWatchdog;
+import com.onescan.app.services.PlatformSyncService;
+import com.onescan.app.services.ScrapeJobWorker;
+import com.onescan.app.services.SyncLeaseService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Synchronisation et supervision de tous les comptes, réservées aux
+ * administrateurs (SecurityConfig), sauf la relance d'un compte de
+ * l'utilisateur connecté.
+ */
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final PlatformSyncService platformSyncService;
+    private final ChromeWatchdog chromeWatchdog;
+    private final ScrapeJobWorker scrapeJobWorker;
+    private final SyncLeaseService syncLeaseService;
+
+    public SyncController(PlatformSyncService platformSyncService, ChromeWatchdog chromeWatchdog,
+            ScrapeJobWorker scrapeJobWorker, SyncLeaseService syncLeaseService) {
+        this.platformSyncService = platformSyncService;
+        this.chromeWatchdog = chromeWatchdog;
+        this.scrapeJobWorker = scrapeJobWorker;
+        this.syncLeaseService = syncLeaseService;
+    }
+
+    /**
+     * Récupère les commandes de toutes les plateformes en parallèle.
+     */
+    @GetMapping("/commandes")
+    public ResponseEntity<List<PlatformSyncResult>> syncCommandes() {
+        return ResponseEntity.ok(platformSyncService.syncAll());
+    }
+
+    /**
+     * Lance la synchronisation de toutes les plateformes en arrière-plan ; les
+     * plateformes déjà en cours sont ignorées.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refreshAll() {
+        platformSyncService.getPlateformes().forEach(platformSyncService::refresh);
+        return ResponseEntity.accepted().body("Synchronisation de toutes les plateformes lancée.");
+    }
+
+    /**
+     * Lance la synchronisation d'un compte plateforme de l'utilisateur connecté.
+     */
+    @PostMapping("/accounts/{platformId}/refresh")
+    public ResponseEntity<String> refreshAccount(@PathVariable Long platformId,
+            @AuthenticationPrincipal UserDetails principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return platformSyncService.findTenant(platformId, principal.getUsername())
+                .map(tenant -> {
+                    platformSyncService.refresh(tenant);
+                    return ResponseEntity.accepted().body("Synchronisation du compte " + tenant + " lancée.");
+                })
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body("Compte plateforme introuvable ou non supporté."));
+    }
+
+    /**
+     * Temps cumulé passé à attendre le chargement des pages, par plateforme.
+     */
+    @GetMapping("/waits")
+    public ResponseEntity<List<WaitStats>> waitStats() {
+        return ResponseEntity.ok(platformSyncService.getWaitStats());
+    }
+
+    /**
+     * Temps de chargement des pages avec et sans blocage des ressources, par
+     * plateforme.
+     */
+    @GetMapping("/page-loads")
+    public ResponseEntity<List<PageLoadStats>> pageLoadStats() {
+        return ResponseEntity.ok(platformSyncService.getPageLoadStats());
+    }
+
+    /**
+     * Navigateurs ouverts, recyclés et mémoire occupée, par plateforme.
+     */
+    @GetMapping("/browsers")
+    public ResponseEntity<List<BrowserStats>> browserStats() {
+        return ResponseEntity.ok(platformSyncService.getBrowserStats());
+    }
+
+    /**
+     * Disjoncteurs des plateformes et délais d'attente adaptatifs appliqués.
+     */
+    @GetMapping("/circuits")
+    public ResponseEntity<List<CircuitStats>> circuitStats() {
+        return ResponseEntity.ok(platformSyncService.getCircuitStats());
+    }
+
+    /**
+     * Tâches de scraping en file, en cours et abandonnées.
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<JobQueueStats> jobStats() {
+        return ResponseEntity.ok(scrapeJobWorker.getStats());
+    }
+
+    /**
+     * Baux du cluster : nœud détenteur, jeton de fencing et échéance de chaque
+     * compte et du planificateur.
+     */
+    @GetMapping("/leases")
+    public ResponseEntity<List<SyncLease>> leases() {
+        return ResponseEntity.ok(syncLeaseService.getLeases());
+    }
+
+    /**
+     * Dernier passage du watchdog : processus Chrome vivants et orphelins tués.
+     */
+    @GetMapping("/browsers/watchdog")
+    public ResponseEntity<WatchdogStats> watchdogStats() {
+        return ResponseEntity.ok(chromeWatchdog.getStats());
+    }
+}
@@ -1,9 +1,14 @@
 package com.onescan.app.controllers;
 
 import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.services.PlatformSyncService;
+import com.onescan.app.services.Tenant;
 import com.onescan.app.services.ThreeShapeSeleniumService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -13,17 +18,25 @@ import java.util.List;
 public class ThreeShapeController {
 
     private final ThreeShapeSeleniumService threeShapeService;
+    private final PlatformSyncService platformSyncService;
 
-    public ThreeShapeController(ThreeShapeSeleniumService threeShapeService) {
+    public ThreeShapeController(ThreeShapeSeleniumService threeShapeService,
+            PlatformSyncService platformSyncService) {
         this.threeShapeService = threeShapeService;
+        this.platformSyncService = platformSyncService;
     }
 
     /**
      * Endpoint pour se connecter à ThreeShape.
+     * Agit sur le compte 3Shape de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/login")
-    public ResponseEntity<String> login() {
-        String result = threeShapeService.login();
+    public ResponseEntity<String> login(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.THREESHAPE, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte 3Shape enregistré.");
+        }
+        String result = threeShapeService.runAs(tenant, threeShapeService::login);
 
         if (result.startsWith("Connexion réussie") || result.equals("Déjà connecté.")) {
             return ResponseEntity.ok(result);
@@ -34,34 +47,69 @@ public class ThreeShapeController {
 
     /**
      * Vérifie si l'utilisateur est actuellement connecté à ThreeShape.
+     * Agit sur le compte 3Shape de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @GetMapping("/status")
-    public ResponseEntity<String> status() {
-        boolean connected = threeShapeService.isLoggedIn();
+    public ResponseEntity<String> status(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.THREESHAPE, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte 3Shape enregistré.");
+        }
+        boolean connected = threeShapeService.runAs(tenant, threeShapeService::isLoggedIn);
         return ResponseEntity.ok("Statut : " + (connected ? "Connecté" : "Non connecté"));
     }
 
     /**
-     * Récupère la liste des commandes depuis ThreeShape.
+     * Commandes 3Shape déjà synchronisées du compte de l'utilisateur connecté,
+     * lues en base. L'en-tête X-Last-Synced-At donne la fin de la dernière
+     * synchronisation réussie. 404 si l'utilisateur n'a pas de compte 3Shape.
      */
     @GetMapping("/commandes")
-    public ResponseEntity<?> getCommandes() {
-        List<Commande> commandes = threeShapeService.fetchCommandes();
+    public ResponseEntity<?> getCommandes(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.THREESHAPE, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte 3Shape enregistré.");
+        }
+        List<Commande> commandes = platformSyncService.getStoredCommandes(tenant);
+        String lastSyncedAt = platformSyncService.getLastSyncedAt(tenant)
+                .map(Object::toString)
+                .orElse("");
 
         if (commandes.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Erreur : Impossible de se connecter à 3Shape ou aucune donnée trouvée.");
+            return ResponseEntity.status(HttpStatus.NO_CONTENT)
+                    .header("X-Last-Synced-At", lastSyncedAt)
+                    .body("Aucune commande synchronisée pour 3Shape.");
         }
 
-        return ResponseEntity.ok(commandes);
+        return ResponseEntity.ok()
+                .header("X-Last-Synced-At", lastSyncedAt)
+                .body(commandes);
+    }
+
+    /**
+     * Lance immédiatement une synchronisation 3Shape en arrière-plan.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<String> refresh(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.THREESHAPE, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte 3Shape enregistré.");
+        }
+        platformSyncService.refresh(tenant);
+        return ResponseEntity.accepted().body("Synchronisation 3Shape lancée.");
     }
 
     /**
      * Ferme le navigateur et réinitialise la session.
+     * Agit sur le compte 3Shape de l'utilisateur connecté, 404 s'il n'en a pas.
      */
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
-        String result = threeShapeService.logout();
+    public ResponseEntity<String> logout(@AuthenticationPrincipal UserDetails principal) {
+        Tenant tenant = platformSyncService.tenantFor(Plateforme.THREESHAPE, username(principal)).orElse(null);
+        if (tenant == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aucun compte 3Shape enregistré.");
+        }
+        String result = threeShapeService.runAs(tenant, threeShapeService::logout);
 
         if (result.equals("Déconnexion réussie.")) {
             return ResponseEntity.ok(result);
@@ -69,4 +117,8 @@ public class ThreeShapeController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(result);
         }
     }
+
+    private static String username(UserDetails principal) {
+        return principal != null ? principal.getUsername() : null;
+    }
 }
\ No newline at end of file
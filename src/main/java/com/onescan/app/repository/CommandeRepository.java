@@ -6,6 +6,9 @@ import com.onescan.app.Entity.Plateforme;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +21,17 @@ public interface CommandeRepository extends JpaRepository<Commande, Long> {
 
     // Méthode pour trouver une commande par son external_id ET sa plateforme
     Optional<Commande> findByExternalIdAndPlateforme(Long externalId, Plateforme plateforme);
+
+    List<Commande> findByPlateforme(Plateforme plateforme);
+
+    // Commandes d'un propriétaire (Commande.ENV_OWNER_ID : compte du .env)
+    List<Commande> findByPlateformeAndOwnerId(Plateforme plateforme, Long ownerId);
+
+    Optional<Commande> findByPlateformeAndOwnerIdAndExternalId(Plateforme plateforme, Long ownerId, Long externalId);
+
+    List<Commande> findByPlateformeAndOwnerIdAndExternalIdIn(Plateforme plateforme, Long ownerId,
+            Collection<Long> externalIds);
+
+    // Commentaires déjà lus, servis sans repasser par la plateforme
+    List<Commande> findByPlateformeAndOwnerIdAndCommentaireIsNotNull(Plateforme plateforme, Long ownerId);
 }
\ No newline at end of file
@@ -9,4 +9,6 @@ import com.onescan.app.Entity.Platform;
 public interface PlatformRepository extends JpaRepository<Platform, Long> {
 
     List<Platform> findByUserId(Long id);
+
+    List<Platform> findByUserEmail(String email);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.onescan.app.repository;
+
+import com.onescan.app.Entity.ScrapeJob;
+import com.onescan.app.Entity.ScrapeJobStatus;
+import com.onescan.app.Entity.ScrapeJobType;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ScrapeJobRepository extends JpaRepository<ScrapeJob, Long> {
+
+    // SELECT ... FOR UPDATE SKIP LOCKED (délai de verrou -2) : les workers des
+    // autres nœuds passent les lignes déjà réservées au lieu de les attendre
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<ScrapeJob> findByStatusAndAvailableAtLessThanEqualOrderByAvailableAtAsc(ScrapeJobStatus status,
+            LocalDateTime now, Pageable page);
+
+    // Tâches dont le worker a cessé de prolonger le bail
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<ScrapeJob> findByStatusAndLeaseUntilBeforeOrderByLeaseUntilAsc(ScrapeJobStatus status,
+            LocalDateTime now, Pageable page);
+
+    boolean existsByTypeAndTenantKeyAndStatusIn(ScrapeJobType type, String tenantKey,
+            Collection<ScrapeJobStatus> statuses);
+
+    long countByStatus(ScrapeJobStatus status);
+
+    long deleteByStatusAndFinishedAtBefore(ScrapeJobStatus status, LocalDateTime before);
+}
@@ -0,0 +1,17 @@
+package com.onescan.app.repository;
+
+import com.onescan.app.Entity.SyncLease;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.Optional;
+
+public interface SyncLeaseRepository extends JpaRepository<SyncLease, String> {
+
+    // SELECT ... FOR UPDATE : un seul nœud à la fois lit et modifie un bail
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<SyncLease> findByLockKey(String lockKey);
+}
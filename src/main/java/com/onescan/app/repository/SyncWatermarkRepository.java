@@ -0,0 +1,8 @@
+package com.onescan.app.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.onescan.app.Entity.SyncWatermark;
+
+public interface SyncWatermarkRepository extends JpaRepository<SyncWatermark, String> {
+}
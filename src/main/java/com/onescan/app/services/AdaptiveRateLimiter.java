@@ -0,0 +1,90 @@
+package com.onescan.app.services;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seau à jetons dont le débit s'adapte aux réponses de la plateforme : il
+ * augmente doucement tant que les requêtes réussissent rapidement et est divisé
+ * par deux à chaque erreur ou réponse lente.
+ */
+public class AdaptiveRateLimiter {
+
+    private final double minRate;
+    private final double maxRate;
+    private final double step;
+    private final Duration slowThreshold;
+
+    // Débit courant en requêtes par seconde
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, Duration slowThreshold) {
+        this.minRate = minRate;
+        this.maxRate = Math.max(minRate, maxRate);
+        this.rate = Math.min(this.maxRate, Math.max(minRate, initialRate));
+        this.step = Math.max(0.1, this.rate / 10);
+        this.slowThreshold = slowThreshold;
+        this.tokens = 1;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Attend un jeton.
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) ((1 - tokens) / rate * TimeUnit.SECONDS.toNanos(1));
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    /**
+     * Requête réussie : le débit augmente, sauf si la réponse a été lente.
+     */
+    public synchronized void onSuccess(Duration latency) {
+        if (latency.compareTo(slowThreshold) > 0) {
+            slowDown();
+        } else {
+            rate = Math.min(maxRate, rate + step);
+        }
+    }
+
+    public synchronized void onFailure() {
+        slowDown();
+    }
+
+    /**
+     * Pause conseillée avant de réessayer une requête échouée.
+     */
+    public synchronized Duration backoff(int attempt) {
+        long millis = (long) (1000 / rate) * (1L << Math.min(attempt, 5));
+        return Duration.ofMillis(millis);
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    private void slowDown() {
+        rate = Math.max(minRate, rate / 2);
+        tokens = Math.min(tokens, 0);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1);
+        // Pas de rafale : au plus un jeton d'avance
+        tokens = Math.min(1, tokens + elapsedSeconds * rate);
+        lastRefill = now;
+    }
+}
@@ -1,49 +1,972 @@
 package com.onescan.app.services;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.onescan.app.DTO.BrowserStats;
+import com.onescan.app.DTO.CircuitStats;
+import com.onescan.app.DTO.PageLoadStats;
+import com.onescan.app.DTO.WaitStats;
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.repository.CommandeRepository;
+import com.onescan.app.services.ScrapeMetrics.Phase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 public abstract class BaseSeleniumService implements DentalPlatformService {
-    protected WebDriver driver;
-    protected boolean isLoggedIn = false;
+
+    /**
+     * Fait défiler le conteneur (ou la fenêtre) jusqu'en bas pour déclencher le
+     * chargement des lignes suivantes.
+     */
+    private static final String SCROLL_TO_END_SCRIPT = """
+            var container = arguments[0] ? document.querySelector(arguments[0]) : null;
+            if (container) {
+                container.scrollTop = container.scrollHeight;
+            } else {
+                window.scrollTo(0, document.body.scrollHeight);
+            }
+            """;
+
+    /**
+     * Lit toutes les lignes d'un tableau en un seul aller-retour WebDriver et les
+     * renvoie en JSON. Voir {@link #extractRows(String, Map)} pour la syntaxe des
+     * champs.
+     */
+    private static final String EXTRACT_TABLE_SCRIPT = """
+            var rowSelector = arguments[0], fields = arguments[1];
+            function read(row, spec) {
+                var scope = row, selector = spec, attribute = null;
+                var sep = selector.indexOf(' >> ');
+                if (sep >= 0) {
+                    scope = row.closest(selector.substring(0, sep));
+                    selector = selector.substring(sep + 4);
+                    if (!scope) return null;
+                }
+                var at = selector.lastIndexOf('@');
+                if (at >= 0) {
+                    attribute = selector.substring(at + 1);
+                    selector = selector.substring(0, at);
+                }
+                var el = selector ? scope.querySelector(selector) : scope;
+                if (!el) return null;
+                var value = attribute ? el.getAttribute(attribute) : (el.innerText || el.textContent);
+                return value == null ? null : String(value).trim();
+            }
+            var rows = document.querySelectorAll(rowSelector), out = [];
+            for (var i = arguments[2] || 0; i < rows.length; i++) {
+                var cells = {};
+                for (var name in fields) cells[name] = read(rows[i], fields[name]);
+                out.push(cells);
+            }
+            return JSON.stringify(out);
+            """;
+
+    /**
+     * Attend, sans interrogation périodique, que le conteneur contienne des
+     * lignes et n'ait plus changé depuis quietMs. Le conteneur est observé par
+     * un MutationObserver ; tant qu'il n'existe pas, tout le document l'est.
+     */
+    private static final String AWAIT_STABLE_SCRIPT = """
+            var containerSelector = arguments[0], rowSelector = arguments[1];
+            var quietMs = arguments[2], timeoutMs = arguments[3], done = arguments[arguments.length - 1];
+            var start = performance.now(), mutations = 0, quietTimer = null, finished = false, observed = null;
+            function container() {
+                return containerSelector ? document.querySelector(containerSelector) : document.body;
+            }
+            function ready() {
+                var root = container();
+                return !!root && (!rowSelector || !!root.querySelector(rowSelector));
+            }
+            function finish(timedOut) {
+                if (finished) return;
+                finished = true;
+                observer.disconnect();
+                clearTimeout(quietTimer);
+                clearTimeout(timeoutTimer);
+                done(JSON.stringify({ready: ready(), timedOut: timedOut, mutations: mutations,
+                        settleMs: Math.round(performance.now() - start)}));
+            }
+            function observe() {
+                var target = container() || document.documentElement;
+                if (target === observed) return;
+                observer.disconnect();
+                observer.observe(target, {childList: true, subtree: true, characterData: true});
+                observed = target;
+            }
+            function arm() {
+                clearTimeout(quietTimer);
+                if (ready()) quietTimer = setTimeout(function () { finish(false); }, quietMs);
+            }
+            var observer = new MutationObserver(function (records) {
+                mutations += records.length;
+                observe();
+                arm();
+            });
+            var timeoutTimer = setTimeout(function () { finish(true); }, timeoutMs);
+            observe();
+            arm();
+            """;
+
+    private static final TypeReference<List<Map<String, String>>> ROWS_TYPE = new TypeReference<>() {
+    };
+
+    @Value("${selenium.pool.max-size:2}")
+    private int poolMaxSize;
+
+    @Value("${selenium.pool.max-idle:PT10M}")
+    private Duration poolMaxIdle;
+
+    @Value("${selenium.pool.max-lifetime:PT2H}")
+    private Duration poolMaxLifetime;
+
+    @Value("${selenium.pool.borrow-timeout:PT2M}")
+    private Duration poolBorrowTimeout;
+
+    // Fermeture périodique des navigateurs inactifs expirés (PT0S : désactivée)
+    @Value("${selenium.pool.idle-sweep:PT1M}")
+    private Duration poolIdleSweep;
+
+    @Value("${selenium.tenants.max-pools:8}")
+    private int maxTenantPools;
+
+    @Value("${selenium.extraction.bulk:true}")
+    private boolean bulkExtraction;
+
+    @Value("${selenium.wait.optional-grace:PT2S}")
+    private Duration optionalGrace;
+
+    @Value("${selenium.wait.quiet-period:PT300MS}")
+    private Duration quietPeriod;
+
+    @Value("${selenium.wait.adaptive.enabled:true}")
+    private boolean adaptiveWaits;
+
+    @Value("${selenium.wait.adaptive.percentile:0.95}")
+    private double adaptivePercentile;
+
+    @Value("${selenium.wait.adaptive.multiplier:3.0}")
+    private double adaptiveMultiplier;
+
+    @Value("${selenium.wait.adaptive.min:PT2S}")
+    private Duration adaptiveMin;
+
+    @Value("${selenium.wait.adaptive.samples:50}")
+    private int adaptiveSamples;
+
+    @Value("${selenium.wait.adaptive.min-samples:5}")
+    private int adaptiveMinSamples;
+
+    @Value("${selenium.circuit.failure-threshold:3}")
+    private int circuitFailureThreshold;
+
+    @Value("${selenium.circuit.open-duration:PT1M}")
+    private Duration circuitOpenDuration;
+
+    @Value("${selenium.circuit.max-open-duration:PT15M}")
+    private Duration circuitMaxOpenDuration;
+
+    @Value("${selenium.blocking.enabled:true}")
+    private boolean blockingEnabled;
+
+    @Value("${selenium.blocking.default-resources:IMAGE,FONT,MEDIA,TRACKER}")
+    private Set<BlockedResource> defaultBlockedResources;
+
+    @Value("${selenium.blocking.baseline-every:0}")
+    private int blockingBaselineEvery;
+
+    @Value("${selenium.recycle.max-navigations:200}")
+    private int recycleMaxNavigations;
+
+    @Value("${selenium.recycle.max-rss-mb:1024}")
+    private long recycleMaxRssMb;
+
+    @Autowired
+    protected CommandeRepository commandeRepository;
+
+    @Autowired
+    private BrowserSessionStore sessionStore;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    private SyncWatermarkService syncWatermarkService;
+
+    @Autowired
+    private ChromeDriverBinaries driverBinaries;
+
+    @Autowired
+    private SharedChrome sharedChrome;
+
+    @Autowired
+    private ExtractionSchemaRegistry extractionSchemas;
+
+    @Autowired
+    private FixtureRecorder fixtureRecorder;
+
+    @Autowired
+    private TenantDirectory tenantDirectory;
+
+    @Autowired
+    private SyncLeaseService syncLeases;
+
+    @Autowired
+    private ScrapeMetrics scrapeMetrics;
+
+    @Autowired
+    protected CommandeStore commandeStore;
+
+    @Autowired
+    private JsonRowReader jsonRows;
+
+    @Autowired
+    private RowPersister rowPersister;
+
+    @Autowired
+    private ListPaginator listPaginator;
+
+    // Identifiants du compte historique (.env), pour les syncs sans compte en base
+    private final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+
+    // Un pool de navigateurs par compte : les sessions des laboratoires ne se mélangent jamais
+    private final Map<String, WebDriverPool> pools = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskScheduler poolSweeper = new ThreadPoolTaskScheduler();
+
+    // Emplacement du pool emprunté par le thread courant
+    private final ThreadLocal<PooledDriver> lease = new ThreadLocal<>();
+
+    // Synchronisation en cours sur le thread courant (watermark)
+    private final ThreadLocal<SyncRun> syncRun = new ThreadLocal<>();
+
+    // Compte pour lequel le thread courant travaille (null : compte du .env)
+    private final ThreadLocal<Tenant> currentTenant = new ThreadLocal<>();
+
+    // Temps passé dans les attentes explicites
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+    private final LongAdder waitMillis = new LongAdder();
+    private final LongAdder settleCount = new LongAdder();
+    private final LongAdder settleMillis = new LongAdder();
+
+    // Chargements de pages, avec et sans blocage des ressources
+    private final AtomicLong driversCreated = new AtomicLong();
+    private final LongAdder blockedLoads = new LongAdder();
+    private final LongAdder blockedLoadMillis = new LongAdder();
+    private final LongAdder fullLoads = new LongAdder();
+    private final LongAdder fullLoadMillis = new LongAdder();
+
+    private final LongAdder driversRecycled = new LongAdder();
+
+    // Durées observées et dernier délai appliqué par point d'attente (login, liste, page-suivante...),
+    // et échec signalé par handleError pendant l'action en cours
+    private final Map<String, LatencyWindow> waitLatencies = new ConcurrentHashMap<>();
+    private final Map<String, Long> appliedTimeouts = new ConcurrentHashMap<>();
+    private final ThreadLocal<Boolean> operationFailed = new ThreadLocal<>();
+    // Un disjoncteur par compte : les identifiants refusés d'un laboratoire ne bloquent pas les autres
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    @Override
+    public String login() {
+        if (lease.get() == null && getCircuitBreaker().isRejecting()) {
+            return "Échec de la connexion: " + unavailableMessage();
+        }
+        return withDriver(this::timedLogin);
+    }
+
+    @Override
+    public List<Commande> fetchCommandes() {
+        return fetchCommandes(tenant());
+    }
+
+    /**
+     * Synchronise un compte avec ses propres navigateurs, session et watermark ;
+     * les commandes sont marquées de son propriétaire. Un seul nœud du cluster
+     * synchronise un compte donné ({@link SyncLeaseService}).
+     * <p>
+     * Une erreur absorbée par le scraper (login refusé, {@link #handleError},
+     * sauvegarde en échec) fait échouer la synchronisation : les commandes déjà
+     * sauvegardées le restent, mais elle n'est pas datée comme réussie.
+     *
+     * @throws LeaseUnavailableException    si un autre nœud synchronise ce compte
+     * @throws PlatformUnavailableException si le disjoncteur du compte est ouvert
+     * @throws IllegalStateException        si la synchronisation a échoué
+     */
+    @Override
+    public List<Commande> fetchCommandes(Tenant tenant) {
+        if (circuitBreaker(tenant).isRejecting()) {
+            throw new PlatformUnavailableException(unavailableMessage(tenant));
+        }
+        return runExclusive(tenant, () -> {
+            SyncRun run = syncWatermarkService.begin(tenant);
+            syncRun.set(run);
+            try {
+                List<Commande> commandes = fetchCommandesOverHttp().orElseGet(() -> withDriver(this::scrapeCommandes));
+                if (run.isFailed()) {
+                    throw new IllegalStateException("Synchronisation incomplète: " + run.getFailure());
+                }
+                return commandes;
+            } catch (RuntimeException e) {
+                run.fail(e.getMessage());
+                throw e;
+            } finally {
+                syncRun.remove();
+                syncWatermarkService.complete(run);
+            }
+        });
+    }
+
+    /**
+     * Exécute action pour le compte tenant en détenant son bail de
+     * synchronisation.
+     *
+     * @throws LeaseUnavailableException si un autre nœud détient ce bail
+     */
+    protected <T> T runExclusive(Tenant tenant, Supplier<T> action) {
+        return syncLeases.runExclusive(tenant.key(), () -> runAs(tenant, action));
+    }
+
+    /**
+     * Écriture des commandes du compte courant, refusée si ce nœud a perdu le
+     * bail du compte entre-temps (jeton de fencing).
+     */
+    protected <T> T fencedWrite(Supplier<T> write) {
+        return syncLeases.fenced(tenant().key(), write);
+    }
+
+    /**
+     * Exécute action pour le compte tenant sur le thread courant.
+     */
+    public <T> T runAs(Tenant tenant, Supplier<T> action) {
+        Tenant previous = currentTenant.get();
+        currentTenant.set(tenant);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                currentTenant.set(previous);
+            } else {
+                currentTenant.remove();
+            }
+        }
+    }
+
+    /**
+     * Compte du thread courant, celui du .env par défaut.
+     */
+    protected Tenant tenant() {
+        Tenant tenant = currentTenant.get();
+        return tenant != null ? tenant : tenantDirectory.envTenant(getPlateforme());
+    }
+
+    /**
+     * Identifiant de connexion du compte courant ; envKey est lu dans le .env
+     * pour le compte historique.
+     */
+    protected String username(String envKey) {
+        Tenant tenant = tenant();
+        return tenant.isEnv() ? dotenv.get(envKey) : tenant.username();
+    }
+
+    protected String password(String envKey) {
+        Tenant tenant = tenant();
+        return tenant.isEnv() ? dotenv.get(envKey) : tenant.password();
+    }
+
+    /**
+     * Mode hybride ({@code selenium.http.<plateforme>.enabled}) : la liste est lue
+     * directement sur l'API avec la session sauvegardée par le dernier login
+     * navigateur ({@link JsonRowReader#listOverHttp}). Retourne Optional.empty()
+     * si le mode est désactivé ou si la session est absente ou expirée.
+     */
+    private Optional<List<Commande>> fetchCommandesOverHttp() {
+        try {
+            return jsonRows.listOverHttp(getPlateforme(), tenant()).map(rows -> {
+                List<Commande> commandes = persistFullList(rows);
+                System.out.println("[" + getPlateforme() + "] " + commandes.size() + " commandes récupérées par HTTP");
+                return commandes;
+            });
+        } catch (LeaseUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("[" + getPlateforme() + "] Erreur récupération HTTP: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    protected boolean isHttpModeEnabled() {
+        return jsonRows.isHttpModeEnabled(getPlateforme());
+    }
+
+    protected String httpProperty(String name) {
+        return jsonRows.httpProperty(getPlateforme(), name);
+    }
+
+    /**
+     * GET sur l'API de la plateforme avec la session sauvegardée, vide si aucune
+     * session n'est disponible ou si elle est refusée.
+     */
+    protected Optional<String> httpGet(String url) {
+        return jsonRows.httpGet(getPlateforme(), tenant(), url);
+    }
+
+    protected CompletableFuture<Optional<String>> httpGetAsync(String url) {
+        return jsonRows.httpGetAsync(getPlateforme(), tenant(), url);
+    }
+
+    /**
+     * GET parallèles, au plus selenium.http.max-concurrency en vol à la fois.
+     */
+    protected Map<String, Optional<String>> httpGetAll(Collection<String> urls) {
+        return jsonRows.httpGetAll(getPlateforme(), tenant(), urls);
+    }
+
+    @Override
+    public String logout() {
+        if (!isLoggedIn()) {
+            return "Déjà déconnecté.";
+        }
+
+        try {
+            return withDriver(this::performLogout);
+        } finally {
+            sessionStore.invalidate(tenant());
+            // Les autres navigateurs du pool partagent le même compte
+            getPool().clear();
+        }
+    }
+
+    /**
+     * Exécute une action avec un navigateur emprunté au pool. Les appels
+     * imbriqués sur le même thread réutilisent le navigateur déjà emprunté.
+     * <p>
+     * Le résultat alimente le disjoncteur du compte : une exception ou
+     * un {@link #handleError} compte comme un échec, sauf la perte du bail du
+     * compte. Disjoncteur ouvert, l'appel est refusé avant d'emprunter un
+     * navigateur.
+     */
+    protected <T> T withDriver(Supplier<T> action) {
+        if (lease.get() != null) {
+            return action.get();
+        }
+
+        CircuitBreaker breaker = getCircuitBreaker();
+        if (!breaker.tryAcquire()) {
+            throw new PlatformUnavailableException(unavailableMessage());
+        }
+
+        WebDriverPool driverPool;
+        PooledDriver slot;
+        try {
+            driverPool = getPool();
+            slot = driverPool.borrow();
+        } catch (RuntimeException e) {
+            // Pool saturé : ce n'est pas une panne de la plateforme
+            breaker.cancel();
+            throw e;
+        }
+        lease.set(slot);
+        operationFailed.set(false);
+        boolean failed = true;
+        try {
+            T result = action.get();
+            failed = operationFailed.get();
+            return result;
+        } catch (LeaseUnavailableException e) {
+            failed = false;
+            throw e;
+        } finally {
+            if (failed) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            operationFailed.remove();
+            lease.remove();
+            if (shouldRecycle(slot)) {
+                driversRecycled.increment();
+                driverPool.discard(slot);
+            }
+            driverPool.release(slot);
+        }
+    }
+
+    /**
+     * Navigateur emprunté par le thread courant, ou null s'il n'a pas encore été
+     * initialisé.
+     */
+    protected WebDriver driver() {
+        PooledDriver slot = lease.get();
+        return slot != null ? slot.getDriver() : null;
+    }
+
+    private JavascriptExecutor javascript() {
+        return (JavascriptExecutor) driver();
+    }
+
+    protected boolean isSessionLoggedIn() {
+        PooledDriver slot = lease.get();
+        return slot != null && slot.isLoggedIn();
+    }
+
+    protected void setSessionLoggedIn(boolean loggedIn) {
+        PooledDriver slot = lease.get();
+        if (slot != null) {
+            slot.setLoggedIn(loggedIn);
+        }
+    }
 
     protected boolean ensureLoggedIn() {
-        if (isLoggedIn && verifyLoggedIn()) {
+        if (isSessionLoggedIn() && timedVerify()) {
             return true;
         }
 
         // Tentative de reconnexion
         String loginResult = login();
-        return loginResult.startsWith("Connexion réussie") || loginResult.equals("Déjà connecté.");
+        boolean loggedIn = loginResult.startsWith("Connexion réussie") || loginResult.equals("Déjà connecté.");
+        if (!loggedIn) {
+            failSync(loginResult);
+        }
+        return loggedIn;
+    }
+
+    /**
+     * Fait échouer la synchronisation en cours sur le thread courant, s'il y en a
+     * une.
+     */
+    private void failSync(String reason) {
+        SyncRun run = syncRun.get();
+        if (run != null) {
+            run.fail(reason);
+        }
+    }
+
+    /**
+     * Reprend une session existante : celle du navigateur emprunté si elle est
+     * encore valide, sinon la dernière session sauvegardée. Le login complet
+     * n'est nécessaire que si cette méthode retourne false.
+     */
+    protected boolean resumeSession() {
+        if (isSessionLoggedIn() && timedVerify()) {
+            return true;
+        }
+
+        if (sessionStore.restore(tenant(), driver(), baseUrl())) {
+            if (timedVerify()) {
+                setSessionLoggedIn(true);
+                return true;
+            }
+            // Session expirée côté plateforme : on repart d'un navigateur vierge
+            sessionStore.invalidate(tenant());
+            driver().manage().deleteAllCookies();
+        }
+        return false;
+    }
+
+    private String timedLogin() {
+        return scrapeMetrics.time(getPlateforme(), Phase.LOGIN, this::performLogin);
     }
 
+    private boolean timedVerify() {
+        return scrapeMetrics.time(getPlateforme(), Phase.VERIFY, this::verifyLoggedIn);
+    }
+
+    /**
+     * À appeler après un login complet réussi : marque le navigateur comme
+     * connecté et sauvegarde sa session pour les prochains navigateurs.
+     */
+    protected void onLoginSucceeded() {
+        setSessionLoggedIn(true);
+        sessionStore.save(tenant(), driver());
+    }
+
+    /**
+     * Crée le navigateur de l'emplacement emprunté s'il n'en a pas ou s'il est
+     * mort : un contexte isolé dans un Chrome partagé si
+     * selenium.contexts.enabled, sinon un Chrome complet.
+     */
     protected void initializeDriver() {
-        if (driver == null || !isDriverAlive()) {
-            WebDriverManager.chromedriver().setup();
-
-            ChromeOptions options = new ChromeOptions();
-            options.addArguments(
-                    "--no-sandbox",
-                    "--disable-dev-shm-usage",
-                    "--remote-allow-origins=*",
-                    "--disable-gpu",
-                    "--window-size=1920,1080",
-                    "--headless=new");
+        PooledDriver slot = requireLease();
+        if (slot.getDriver() == null || !isDriverAlive()) {
+            getPool().discard(slot);
+
+            // Un navigateur sur baseline-every reste sans blocage pour comparer les temps
+            long created = driversCreated.incrementAndGet();
+            boolean baseline = blockingBaselineEvery > 0 && created % blockingBaselineEvery == 0;
+            Set<BlockedResource> blocked = blockingEnabled && !baseline
+                    ? getBlockedResources()
+                    : EnumSet.noneOf(BlockedResource.class);
 
+            long start = System.nanoTime();
             try {
-                driver = new ChromeDriver(options);
+                WebDriver driver;
+                if (sharedChrome.isEnabled()) {
+                    // Les préférences d'images sont celles du Chrome partagé : seul le blocage
+                    // DevTools, propre à l'onglet, s'applique au contexte
+                    BrowserContext context = sharedChrome.open(getPlateforme() + "/" + tenant().key());
+                    driver = context.getDriver();
+                    slot.attach(driver, context.getDriverProcess(), context);
+                } else {
+                    ChromeDriverService service = ChromeDriverService.createDefaultService();
+                    driver = driverBinaries.start(service, chromeOptions(blocked));
+                    slot.attach(driver, ProcessMemory.chromedriverOnPort(service.getUrl().getPort()), null);
+                }
                 driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
-                driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+                // Pas d'attente implicite : les éléments optionnels absents sont détectés
+                // immédiatement, seules les attentes explicites (pageWait) patientent
+                driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+                if (!blocked.isEmpty()) {
+                    slot.setResourceBlocking(ResourceBlocker.apply(driver, getBlockedUrlPatterns(blocked)));
+                }
             } catch (Exception e) {
                 throw new RuntimeException("Échec de l'initialisation de ChromeDriver: " + e.getMessage());
+            } finally {
+                scrapeMetrics.record(getPlateforme(), Phase.DRIVER_INIT, start);
+            }
+        }
+    }
+
+    private ChromeOptions chromeOptions(Set<BlockedResource> blocked) {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments(
+                "--no-sandbox",
+                "--disable-dev-shm-usage",
+                "--remote-allow-origins=*",
+                "--disable-gpu",
+                "--window-size=1920,1080",
+                "--headless=new");
+        if (blocked.contains(BlockedResource.IMAGE)) {
+            Map<String, Object> prefs = new HashMap<>();
+            prefs.put("profile.managed_default_content_settings.images", 2);
+            options.setExperimentalOption("prefs", prefs);
+            options.addArguments("--blink-settings=imagesEnabled=false");
+        }
+        return options;
+    }
+
+    /**
+     * Vrai si le navigateur doit être remplacé : trop de navigations
+     * (selenium.recycle.max-navigations) ou trop de mémoire pour chromedriver et
+     * Chrome réunis (selenium.recycle.max-rss-mb).
+     */
+    private boolean shouldRecycle(PooledDriver slot) {
+        if (slot.getDriver() == null) {
+            return false;
+        }
+        if (recycleMaxNavigations > 0 && slot.getNavigations() >= recycleMaxNavigations) {
+            System.out.println("[" + getPlateforme() + "] Navigateur recyclé après " + slot.getNavigations()
+                    + " navigations");
+            return true;
+        }
+        if (recycleMaxRssMb > 0 && slot.getProcess() != null) {
+            long rssMb = ProcessMemory.treeRssBytes(slot.getProcess()) / (1024 * 1024);
+            if (rssMb >= recycleMaxRssMb) {
+                System.out.println("[" + getPlateforme() + "] Navigateur recyclé à " + rssMb + " Mo");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Jauges des pools de la plateforme (tous comptes confondus) : navigateurs
+     * ouverts, empruntés, inactifs, appels en attente d'un navigateur et
+     * mémoire occupée.
+     */
+    @PostConstruct
+    public void registerPoolMetrics() {
+        Plateforme plateforme = getPlateforme();
+        scrapeMetrics.gauge(plateforme, "scrape.pool.browsers", "Navigateurs ouverts",
+                () -> sumPools(current -> (int) current.getSlots().stream()
+                        .filter(slot -> slot.getDriver() != null).count()));
+        scrapeMetrics.gauge(plateforme, "scrape.pool.active", "Navigateurs empruntés",
+                () -> sumPools(WebDriverPool::getActiveCount));
+        scrapeMetrics.gauge(plateforme, "scrape.pool.idle", "Navigateurs inactifs",
+                () -> sumPools(WebDriverPool::getIdleCount));
+        scrapeMetrics.gauge(plateforme, "scrape.pool.waiting", "Appels en attente d'un navigateur",
+                () -> sumPools(WebDriverPool::getWaitingCount));
+        scrapeMetrics.gauge(plateforme, "scrape.pool.accounts", "Comptes ayant un pool", pools::size);
+        scrapeMetrics.gauge(plateforme, "scrape.pool.memory.bytes", "Mémoire des processus du pool",
+                () -> getBrowserStats().rssMo() * 1024 * 1024);
+    }
+
+    /**
+     * Ferme toutes les selenium.pool.idle-sweep les navigateurs restés inactifs
+     * au-delà de max-idle : sans cela, un compte qui n'est plus synchronisé
+     * garde ses Chrome ouverts jusqu'au prochain emprunt.
+     */
+    @PostConstruct
+    public void startPoolSweep() {
+        if (poolIdleSweep.isZero() || poolIdleSweep.isNegative()) {
+            return;
+        }
+        poolSweeper.setPoolSize(1);
+        poolSweeper.setThreadNamePrefix(getClass().getSimpleName() + "-pool-sweep-");
+        poolSweeper.initialize();
+        poolSweeper.scheduleWithFixedDelay(this::sweepIdleDrivers, Instant.now().plus(poolIdleSweep), poolIdleSweep);
+    }
+
+    void sweepIdleDrivers() {
+        pools.forEach((key, current) -> {
+            try {
+                int evicted = current.evictExpired();
+                if (evicted > 0) {
+                    System.out.println("[" + getPlateforme() + "] " + evicted + " navigateur(s) inactif(s) fermé(s) pour "
+                            + key);
+                }
+            } catch (Exception e) {
+                System.err.println("[" + getPlateforme() + "] Erreur lors du nettoyage du pool " + key + ": "
+                        + e.getMessage());
+            }
+        });
+    }
+
+    private int sumPools(ToIntFunction<WebDriverPool> count) {
+        return pools.values().stream().mapToInt(count).sum();
+    }
+
+    /**
+     * Navigateurs du pool et mémoire occupée par leurs processus.
+     */
+    public BrowserStats getBrowserStats() {
+        long rss = 0;
+        int browsers = 0;
+        int active = 0;
+        int idle = 0;
+        for (WebDriverPool current : pools.values()) {
+            for (PooledDriver slot : current.getSlots()) {
+                ProcessHandle process = slot.getProcess();
+                if (slot.getDriver() != null) {
+                    browsers++;
+                }
+                if (process != null && process.isAlive()) {
+                    rss += ProcessMemory.treeRssBytes(process);
+                }
+            }
+            active += current.getActiveCount();
+            idle += current.getIdleCount();
+        }
+        return new BrowserStats(getPlateforme(), browsers, active, idle, driversRecycled.sum(), rss / (1024 * 1024));
+    }
+
+    /**
+     * Processus chromedriver des navigateurs du pool, connus du watchdog.
+     */
+    public Set<Long> getDriverPids() {
+        Set<Long> pids = new HashSet<>();
+        for (WebDriverPool current : pools.values()) {
+            for (PooledDriver slot : current.getSlots()) {
+                ProcessHandle process = slot.getProcess();
+                if (process != null) {
+                    pids.add(process.pid());
+                }
             }
         }
+        return pids;
     }
 
     protected boolean isDriverAlive() {
+        return isDriverAlive(driver());
+    }
+
+    /**
+     * Ouvre et connecte jusqu'à count navigateurs du pool, pour que les premières
+     * requêtes ne paient ni le lancement de Chrome ni le login. Le premier se
+     * connecte seul ; les suivants reprennent sa session sauvegardée.
+     *
+     * @return nombre de navigateurs connectés
+     */
+    public int warmUp(int count) {
+        int target = Math.min(count, getPool().getMaxSize());
+        if (target <= 0) {
+            return 0;
+        }
+
+        // Chaque navigateur reste emprunté jusqu'à ce que tous soient prêts, sinon
+        // le pool rendrait plusieurs fois le même. Un préchauffage qui n'obtient pas
+        // de navigateur (pool saturé, disjoncteur ouvert) compte aussi comme prêt,
+        // et l'attente est bornée par borrow-timeout
+        CountDownLatch ready = new CountDownLatch(target);
+        AtomicInteger connected = new AtomicInteger();
+        Runnable warmOne = () -> {
+            AtomicBoolean counted = new AtomicBoolean();
+            Runnable markReady = () -> {
+                if (counted.compareAndSet(false, true)) {
+                    ready.countDown();
+                }
+            };
+            try {
+                withDriver(() -> {
+                    try {
+                        String result = timedLogin();
+                        if (result.startsWith("Connexion réussie") || result.equals("Déjà connecté.")) {
+                            connected.incrementAndGet();
+                        }
+                    } finally {
+                        markReady.run();
+                    }
+                    try {
+                        if (!ready.await(poolBorrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                            System.err.println("[" + getPlateforme() + "] Préchauffage : navigateurs non prêts après "
+                                    + poolBorrowTimeout.toSeconds() + " s");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                System.err.println("[" + getPlateforme() + "] Échec du préchauffage: " + e.getMessage());
+            } finally {
+                markReady.run();
+            }
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> first = executor.submit(warmOne);
+            // Attend que le premier navigateur ait ouvert la session avant de lancer les autres
+            while (!first.isDone() && ready.getCount() == target) {
+                Thread.sleep(100);
+            }
+            for (int i = 1; i < target; i++) {
+                executor.submit(warmOne);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return connected.get();
+    }
+
+    /**
+     * Ressources que les pages de cette plateforme peuvent ne pas charger sans
+     * gêner le login ni la lecture des tableaux. La configuration
+     * ({@code selenium.blocking.<plateforme>.resources}) ne peut que restreindre
+     * cette liste.
+     */
+    protected Set<BlockedResource> safeToBlock() {
+        return EnumSet.allOf(BlockedResource.class);
+    }
+
+    private Set<BlockedResource> getBlockedResources() {
+        Set<BlockedResource> configured = Binder.get(environment)
+                .bind(blockingPrefix() + ".resources", Bindable.setOf(BlockedResource.class))
+                .orElse(defaultBlockedResources);
+        Set<BlockedResource> blocked = EnumSet.noneOf(BlockedResource.class);
+        blocked.addAll(configured);
+        blocked.retainAll(safeToBlock());
+        return blocked;
+    }
+
+    private List<String> getBlockedUrlPatterns(Set<BlockedResource> blocked) {
+        List<String> patterns = new ArrayList<>();
+        blocked.forEach(resource -> patterns.addAll(resource.getUrlPatterns()));
+        patterns.addAll(Binder.get(environment)
+                .bind(blockingPrefix() + ".extra-patterns", Bindable.listOf(String.class))
+                .orElse(List.of()));
+        return patterns;
+    }
+
+    private String blockingPrefix() {
+        return "selenium.blocking." + getPlateforme().name().toLowerCase();
+    }
+
+    /**
+     * Navigue vers url et comptabilise le temps de chargement selon que le
+     * navigateur bloque ou non les ressources (voir {@link #getPageLoadStats()}).
+     */
+    protected void loadPage(String url) {
+        long start = System.nanoTime();
+        requireLease().countNavigation();
+        try {
+            driver().navigate().to(url);
+            recordPage();
+        } finally {
+            scrapeMetrics.record(getPlateforme(), Phase.NAVIGATE, start);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (requireLease().isResourceBlocking()) {
+                blockedLoads.increment();
+                blockedLoadMillis.add(elapsed);
+            } else {
+                fullLoads.increment();
+                fullLoadMillis.add(elapsed);
+            }
+        }
+    }
+
+    /**
+     * Sauvegarde la page courante si le mode enregistrement des fixtures est
+     * actif. Appelé après chaque navigation et une fois le tableau stable.
+     */
+    protected void recordPage() {
+        if (fixtureRecorder.isEnabled()) {
+            fixtureRecorder.recordPage(getPlateforme(), driver().getCurrentUrl(), driver().getPageSource());
+        }
+    }
+
+    public PageLoadStats getPageLoadStats() {
+        Set<String> resources = new TreeSet<>();
+        if (blockingEnabled) {
+            getBlockedResources().forEach(resource -> resources.add(resource.name()));
+        }
+        return new PageLoadStats(getPlateforme(), resources,
+                blockedLoads.sum(), blockedLoadMillis.sum(), fullLoads.sum(), fullLoadMillis.sum());
+    }
+
+    protected boolean isDriverAlive(WebDriver driver) {
+        if (driver == null) {
+            return false;
+        }
         try {
             driver.getTitle();
             return true;
@@ -52,28 +975,529 @@ public abstract class BaseSeleniumService implements DentalPlatformService {
         }
     }
 
-    protected void handleError(Exception e) {
-        isLoggedIn = false;
-        closeDriver();
-        System.err.println("Erreur Selenium: " + e.getMessage());
+    /**
+     * Extrait les cellules de toutes les lignes correspondant à rowSelector.
+     * Chaque champ est un sélecteur CSS relatif à la ligne, éventuellement
+     * suffixé par {@code @attribut} pour lire un attribut au lieu du texte, et
+     * préfixé par {@code ancêtre >> } pour chercher depuis l'ancêtre le plus
+     * proche de la ligne. Une cellule absente vaut null.
+     * <p>
+     * Par défaut un seul script est exécuté dans la page ; en cas d'échec (ou si
+     * selenium.extraction.bulk=false) les cellules sont lues élément par élément.
+     */
+    protected List<Map<String, String>> extractRows(String rowSelector, Map<String, String> fields) {
+        return extractRows(rowSelector, fields, 0);
     }
 
-    public void closeDriver() {
-        if (driver != null) {
+    /**
+     * Comme {@link #extractRows(String, Map)}, en ignorant les fromIndex
+     * premières lignes (déjà lues lors d'un défilement précédent).
+     */
+    protected List<Map<String, String>> extractRows(String rowSelector, Map<String, String> fields, int fromIndex) {
+        List<Map<String, String>> rows = scrapeMetrics.time(getPlateforme(), Phase.EXTRACT,
+                () -> readRows(rowSelector, fields, fromIndex));
+        scrapeMetrics.rowsExtracted(getPlateforme(), "dom", rows.size());
+        return rows;
+    }
+
+    private List<Map<String, String>> readRows(String rowSelector, Map<String, String> fields, int fromIndex) {
+        if (bulkExtraction) {
             try {
-                driver.quit();
+                String json = String.valueOf(javascript().executeScript(EXTRACT_TABLE_SCRIPT, rowSelector, fields, fromIndex));
+                return objectMapper.readValue(json, ROWS_TYPE);
             } catch (Exception e) {
-                System.err.println("Erreur lors de la fermeture du driver: " + e.getMessage());
-            } finally {
-                driver = null;
+                System.err.println("Extraction par script impossible, lecture élément par élément: " + e.getMessage());
             }
         }
+
+        List<Map<String, String>> rows = new ArrayList<>();
+        List<WebElement> elements = driver().findElements(By.cssSelector(rowSelector));
+        for (WebElement row : elements.subList(Math.min(fromIndex, elements.size()), elements.size())) {
+            Map<String, String> cells = new LinkedHashMap<>();
+            fields.forEach((name, spec) -> cells.put(name, readCell(row, spec)));
+            rows.add(cells);
+        }
+        return rows;
+    }
+
+    /**
+     * Lit la liste page par page (ou défilement par défilement) selon
+     * {@code selenium.pagination.<plateforme>.*} et sauvegarde chaque page dès
+     * qu'elle est lue. Le parcours s'arrête à la dernière page ou au budget
+     * max-pages. Seules les max-returned premières commandes sont gardées en
+     * mémoire pour la réponse ; les suivantes sont uniquement sauvegardées.
+     * Chaque nouvelle page est lue une fois containerSelector stabilisé (voir
+     * {@link #awaitStable(String, String, String, Duration)}).
+     */
+    protected List<Commande> scrapeAllPages(String containerSelector, String rowSelector,
+            Map<String, String> fields) {
+        return listPaginator.readAll(getPlateforme(), listPaginator.getPagination(getPlateforme()),
+                new ListPaginator.Pages() {
+                    @Override
+                    public List<Map<String, String>> read(int fromIndex) {
+                        return extractRows(rowSelector, fields, fromIndex);
+                    }
+
+                    @Override
+                    public boolean nextPage(Pagination pagination) {
+                        return goToNextPage(pagination, containerSelector, rowSelector);
+                    }
+
+                    @Override
+                    public boolean scrollForMore(Pagination pagination, int knownRows) {
+                        return BaseSeleniumService.this.scrollForMore(pagination, containerSelector, rowSelector,
+                                knownRows);
+                    }
+                }, this::persistRows, syncRun.get());
+    }
+
+    /**
+     * Empreinte SHA-256 des cellules d'une ligne de liste : elle change dès
+     * qu'une valeur affichée change.
+     */
+    protected static String fingerprint(Map<String, String> row) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            new TreeMap<>(row).forEach((name, value) -> {
+                digest.update(name.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Convertit les lignes en commandes et les sauvegarde en un lot pour le
+     * compte courant ({@link RowPersister}). Un échec de sauvegarde fait échouer
+     * la synchronisation en cours sans interrompre le parcours.
+     */
+    protected List<Commande> persistRows(List<Map<String, String>> rows) {
+        return rowPersister.persist(tenant(), rows, this::toCommande, syncRun.get());
+    }
+
+    /**
+     * Comme {@link #persistRows}, pour la liste entière lue en une fois (mode
+     * HTTP, {@link #captureRows}) : la synchronisation en cours est complète.
+     */
+    protected List<Commande> persistFullList(List<Map<String, String>> rows) {
+        return rowPersister.persistAll(tenant(), rows, this::toCommande, syncRun.get());
+    }
+
+    private boolean goToNextPage(Pagination pagination, String containerSelector, String rowSelector) {
+        Optional<WebElement> next = findOptional(driver(), By.cssSelector(pagination.nextSelector()));
+        List<WebElement> current = driver().findElements(By.cssSelector(rowSelector));
+        if (next.isEmpty() || !next.get().isEnabled() || current.isEmpty()) {
+            return false;
+        }
+        try {
+            next.get().click();
+            // La page suivante est rendue quand l'ancienne première ligne a disparu
+            pageWait("page-suivante", pagination.settleTimeout())
+                    .until(ExpectedConditions.stalenessOf(current.get(0)));
+            awaitStable("page-suivante", containerSelector, rowSelector, pagination.settleTimeout());
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    private boolean scrollForMore(Pagination pagination, String containerSelector, String rowSelector,
+            int knownRows) {
+        javascript().executeScript(SCROLL_TO_END_SCRIPT, pagination.scrollContainer());
+        try {
+            pageWait("defilement", pagination.settleTimeout())
+                    .until(d -> d.findElements(By.cssSelector(rowSelector)).size() > knownRows);
+            awaitStable("defilement", containerSelector, rowSelector, pagination.settleTimeout());
+            return true;
+        } catch (TimeoutException e) {
+            // Plus rien n'arrive : fin de la liste
+            return false;
+        }
+    }
+
+    /**
+     * Charge la page en écoutant le réseau et construit les lignes directement à
+     * partir des réponses JSON de la plateforme ({@code selenium.capture.<plateforme>.*}).
+     * Retourne Optional.empty() si la capture est désactivée ou n'a rien donné ;
+     * l'appelant revient alors à l'extraction depuis le DOM.
+     */
+    protected Optional<List<Map<String, String>>> captureRows(String pageUrl) {
+        try {
+            return jsonRows.captureRows(getPlateforme(), driver(), pageUrl, () -> loadPage(pageUrl));
+        } finally {
+            // La fin de capture désactive le domaine Network, et avec lui le blocage
+            if (requireLease().isResourceBlocking()) {
+                ResourceBlocker.apply(driver(), getBlockedUrlPatterns(getBlockedResources()));
+            }
+        }
+    }
+
+    /**
+     * Lignes lues directement sur l'API, avec la même correspondance JSON que la
+     * capture réseau. Vide si la session HTTP est absente ou refusée.
+     */
+    protected Optional<List<Map<String, String>>> httpRows(String url) {
+        return jsonRows.httpRows(getPlateforme(), tenant(), url);
+    }
+
+    /**
+     * Schéma d'extraction de la plateforme ({@code extraction.<plateforme>.*}),
+     * compilé au démarrage.
+     */
+    protected ExtractionSchema schema() {
+        return extractionSchemas.get(getPlateforme())
+                .orElseThrow(() -> new IllegalStateException(
+                        "[" + getPlateforme() + "] Aucun schéma d'extraction configuré"));
+    }
+
+    /**
+     * Attente explicite pour qu'une page soit prête. Le temps passé à attendre est
+     * comptabilisé dans {@link #getWaitStats()} ; name identifie le point
+     * d'attente (login, liste...) dont les durées fixent le délai adaptatif.
+     */
+    protected WebDriverWait pageWait(String name, Duration timeout) {
+        return timedWait(adaptiveTimeout(name, timeout), name);
+    }
+
+    /**
+     * Attente comptabilisée ; si key est renseignée, sa durée (ou son délai en
+     * cas d'échec) alimente le délai adaptatif de ce point d'attente.
+     */
+    private WebDriverWait timedWait(Duration timeout, String key) {
+        return new WebDriverWait(driver(), timeout) {
+            @Override
+            public <V> V until(Function<? super WebDriver, V> condition) {
+                long start = System.nanoTime();
+                try {
+                    V result = super.until(condition);
+                    recordLatency(key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    return result;
+                } catch (TimeoutException e) {
+                    waitTimeouts.increment();
+                    recordLatency(key, timeout.toMillis());
+                    throw e;
+                } finally {
+                    waitCount.increment();
+                    waitMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    scrapeMetrics.record(getPlateforme(), Phase.WAIT, start);
+                }
+            }
+        };
+    }
+
+    /**
+     * Élément obligatoire : échoue immédiatement s'il est absent.
+     */
+    protected WebElement findRequired(SearchContext context, By by) {
+        return context.findElement(by);
+    }
+
+    /**
+     * Élément optionnel : retourne immédiatement, sans attente, s'il est absent.
+     */
+    protected Optional<WebElement> findOptional(SearchContext context, By by) {
+        List<WebElement> elements = context.findElements(by);
+        return elements.isEmpty() ? Optional.empty() : Optional.of(elements.get(0));
+    }
+
+    /**
+     * Élément optionnel susceptible d'apparaître après le chargement (bannière de
+     * cookies, popup) : attend au plus selenium.wait.optional-grace.
+     */
+    protected Optional<WebElement> probe(ExpectedCondition<WebElement> condition) {
+        try {
+            return Optional.ofNullable(timedWait(optionalGrace, null).until(condition));
+        } catch (TimeoutException e) {
+            return Optional.empty();
+        }
+    }
+
+    public WaitStats getWaitStats() {
+        return new WaitStats(getPlateforme(), waitCount.sum(), waitTimeouts.sum(), waitMillis.sum(),
+                settleCount.sum(), settleMillis.sum());
+    }
+
+    /**
+     * Attend que containerSelector contienne au moins une ligne rowSelector puis
+     * reste inchangé pendant selenium.wait.quiet-period. Le temps de
+     * stabilisation est comptabilisé dans {@link #getWaitStats()}. Un conteneur
+     * qui ne cesse jamais de changer est accepté à l'échéance. Les durées sont
+     * mesurées par point d'attente name, comme pour {@link #pageWait}.
+     *
+     * @throws TimeoutException si aucune ligne n'est apparue avant timeout
+     */
+    protected void awaitStable(String name, String containerSelector, String rowSelector, Duration ceiling) {
+        String key = name + "#stable";
+        Duration timeout = adaptiveTimeout(key, ceiling);
+        long start = System.nanoTime();
+        try {
+            driver().manage().timeouts().scriptTimeout(timeout.plusSeconds(5));
+            String json = String.valueOf(javascript().executeAsyncScript(AWAIT_STABLE_SCRIPT,
+                    containerSelector, rowSelector, quietPeriod.toMillis(), timeout.toMillis()));
+            Map<String, Object> result = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+            if (!Boolean.TRUE.equals(result.get("ready"))) {
+                waitTimeouts.increment();
+                recordLatency(key, timeout.toMillis());
+                throw new TimeoutException("Aucune ligne " + rowSelector + " dans " + containerSelector
+                        + " après " + timeout.toSeconds() + " s");
+            }
+            settleCount.increment();
+            settleMillis.add(((Number) result.get("settleMs")).longValue());
+            recordLatency(key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            recordPage();
+        } catch (TimeoutException e) {
+            throw e;
+        } catch (Exception e) {
+            // Script impossible (page en cours de navigation...) : attente classique, non
+            // comptée par timedWait pour n'être mesurée qu'une fois (finally ci-dessous)
+            try {
+                new WebDriverWait(driver(), timeout).until(ExpectedConditions.presenceOfElementLocated(By.cssSelector(
+                        containerSelector != null ? containerSelector + " " + rowSelector : rowSelector)));
+            } catch (TimeoutException expired) {
+                waitTimeouts.increment();
+                recordLatency(key, timeout.toMillis());
+                throw expired;
+            }
+            recordLatency(key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            recordPage();
+        } finally {
+            waitCount.increment();
+            waitMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            scrapeMetrics.record(getPlateforme(), Phase.WAIT, start);
+        }
+    }
+
+    private String readCell(WebElement row, String spec) {
+        SearchContext scope = row;
+        String selector = spec;
+        String attribute = null;
+
+        int sep = selector.indexOf(" >> ");
+        if (sep >= 0) {
+            scope = (WebElement) javascript().executeScript("return arguments[0].closest(arguments[1]);", row, selector.substring(0, sep));
+            selector = selector.substring(sep + 4);
+            if (scope == null) {
+                return null;
+            }
+        }
+        int at = selector.lastIndexOf('@');
+        if (at >= 0) {
+            attribute = selector.substring(at + 1);
+            selector = selector.substring(0, at);
+        }
+
+        Optional<WebElement> element = selector.isEmpty()
+                ? Optional.of((WebElement) scope)
+                : findOptional(scope, By.cssSelector(selector));
+        if (element.isEmpty()) {
+            return null;
+        }
+        String value = attribute != null ? readAttribute(element.get(), attribute) : element.get().getText();
+        return value != null ? value.trim() : null;
+    }
+
+    /**
+     * Attribut HTML de l'élément, sinon propriété DOM du même nom (value
+     * saisie...), comme le getAttribute du script d'extraction groupée.
+     */
+    private static String readAttribute(WebElement element, String attribute) {
+        String value = element.getDomAttribute(attribute);
+        return value != null ? value : element.getDomProperty(attribute);
+    }
+
+    /**
+     * Échec d'une action : il est compté par le disjoncteur et fait échouer la
+     * synchronisation en cours. Un délai dépassé sur un navigateur encore vivant
+     * vient de la plateforme, pas du navigateur : il est conservé (avec sa
+     * session) pour ne pas payer un nouveau Chrome et un nouveau login au
+     * prochain appel.
+     */
+    protected void handleError(Exception e) {
+        if (e instanceof LeaseUnavailableException lost) {
+            // Bail du compte perdu : ni la plateforme ni le navigateur ne sont en cause
+            throw lost;
+        }
+        if (operationFailed.get() != null) {
+            operationFailed.set(true);
+        }
+        failSync(e.getMessage());
+        System.err.println("Erreur Selenium: " + e.getMessage());
+        if (e instanceof TimeoutException && isDriverAlive(driver())) {
+            return;
+        }
+        setSessionLoggedIn(false);
+        closeDriver();
+    }
+
+    /**
+     * Délai d'une attente : percentile des durées récentes de ce point
+     * d'attente multiplié par selenium.wait.adaptive.multiplier, borné par
+     * selenium.wait.adaptive.min et par le plafond fourni. Le plafond s'applique
+     * tant qu'il n'y a pas assez de mesures.
+     */
+    protected Duration adaptiveTimeout(String key, Duration ceiling) {
+        LatencyWindow window = key != null ? waitLatencies.get(key) : null;
+        Duration timeout = ceiling;
+        if (adaptiveWaits && window != null && window.size() >= adaptiveMinSamples) {
+            long millis = (long) (window.percentile(adaptivePercentile) * adaptiveMultiplier);
+            timeout = Duration.ofMillis(Math.min(ceiling.toMillis(), Math.max(adaptiveMin.toMillis(), millis)));
+        }
+        if (key != null) {
+            appliedTimeouts.put(key, timeout.toMillis());
+        }
+        return timeout;
+    }
+
+    private void recordLatency(String key, long millis) {
+        if (key != null) {
+            waitLatencies.computeIfAbsent(key, k -> new LatencyWindow(adaptiveSamples)).record(millis);
+        }
+    }
+
+    /**
+     * Disjoncteur du compte pour lequel le thread courant travaille.
+     */
+    protected CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker(tenant());
+    }
+
+    private CircuitBreaker circuitBreaker(Tenant tenant) {
+        return circuitBreakers.computeIfAbsent(tenant.key(), key -> new CircuitBreaker(key, circuitFailureThreshold,
+                circuitOpenDuration, circuitMaxOpenDuration));
+    }
+
+    private String unavailableMessage() {
+        return unavailableMessage(tenant());
+    }
+
+    private String unavailableMessage(Tenant tenant) {
+        Instant openUntil = circuitBreaker(tenant).getOpenUntil();
+        return "[" + tenant + "] Compte indisponible (disjoncteur ouvert"
+                + (openUntil != null ? " jusqu'à " + openUntil : "") + ")";
+    }
+
+    /**
+     * État des disjoncteurs des comptes déjà sollicités.
+     */
+    public List<CircuitStats> getCircuitStats() {
+        Map<String, Long> timeouts = new TreeMap<>(appliedTimeouts);
+        return new TreeMap<>(circuitBreakers).entrySet().stream()
+                .map(entry -> new CircuitStats(getPlateforme(), entry.getKey(), entry.getValue().getState().name(),
+                        entry.getValue().getConsecutiveFailures(), entry.getValue().getOpenUntil(),
+                        entry.getValue().getRejected(), timeouts))
+                .toList();
+    }
+
+    /**
+     * Ferme le navigateur emprunté par le thread courant, ou tous les navigateurs
+     * inactifs si aucun n'est emprunté.
+     */
+    public void closeDriver() {
+        PooledDriver slot = lease.get();
+        if (slot != null) {
+            getPool().discard(slot);
+        } else {
+            getPool().clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poolSweeper.shutdown();
+        pools.values().forEach(WebDriverPool::close);
     }
 
     @Override
     public boolean isLoggedIn() {
-        return isLoggedIn;
+        WebDriverPool current = pools.get(tenant().key());
+        return current != null && current.hasLoggedInDriver();
+    }
+
+    /**
+     * Pool du compte courant. Au-delà de selenium.tenants.max-pools comptes, le
+     * pool inutilisé depuis le plus longtemps est fermé : sa session sauvegardée
+     * évitera un nouveau login au prochain passage. Un pool fermé entre-temps
+     * est remplacé.
+     */
+    protected WebDriverPool getPool() {
+        String key = tenant().key();
+        WebDriverPool current = pools.get(key);
+        if (current == null || current.isClosed()) {
+            synchronized (this) {
+                current = pools.get(key);
+                if (current != null && current.isClosed()) {
+                    pools.remove(key, current);
+                    current = null;
+                }
+                if (current == null) {
+                    evictIdlePool();
+                    current = new WebDriverPool(getClass().getSimpleName() + "/" + key, poolMaxSize, poolMaxIdle,
+                            poolMaxLifetime, poolBorrowTimeout, this::isDriverAlive);
+                    pools.put(key, current);
+                }
+            }
+        }
+        return current;
     }
 
+    private void evictIdlePool() {
+        if (pools.size() < Math.max(1, maxTenantPools)) {
+            return;
+        }
+        // closeIfIdle revérifie sous permis : un emprunt arrivé entre-temps garde son pool
+        pools.entrySet().stream()
+                .filter(entry -> entry.getValue().getActiveCount() == 0)
+                .sorted(Comparator.comparing(entry -> entry.getValue().getLastBorrowedAt()))
+                .filter(entry -> entry.getValue().closeIfIdle())
+                .findFirst()
+                .ifPresent(entry -> {
+                    pools.remove(entry.getKey(), entry.getValue());
+                    System.out.println("[" + getPlateforme() + "] Pool de " + entry.getKey() + " fermé (inutilisé)");
+                });
+    }
+
+    private PooledDriver requireLease() {
+        PooledDriver slot = lease.get();
+        if (slot == null) {
+            throw new IllegalStateException("Aucun driver emprunté pour ce thread");
+        }
+        return slot;
+    }
+
+    protected abstract String getBaseUrl();
+
+    /**
+     * URL de base effective : {@code selenium.base-url.<plateforme>} si défini
+     * (serveur de fixtures, recette...), sinon celle de la plateforme.
+     */
+    protected String baseUrl() {
+        return environment.getProperty("selenium.base-url." + getPlateforme().name().toLowerCase(), getBaseUrl());
+    }
+
+    /**
+     * Construit une commande à partir des cellules d'une ligne (DOM, capture
+     * réseau ou API) selon le schéma d'extraction, null si la ligne est
+     * incomplète.
+     */
+    protected Commande toCommande(Map<String, String> row) {
+        Commande commande = schema().toCommande(row,
+                (property, reason) -> scrapeMetrics.parseError(getPlateforme(), property, reason));
+        if (commande != null) {
+            commande.setOwnerId(tenant().ownerId());
+        }
+        return commande;
+    }
+
+    protected abstract String performLogin();
+
+    protected abstract List<Commande> scrapeCommandes();
+
+    protected abstract String performLogout();
+
     protected abstract boolean verifyLoggedIn();
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.onescan.app.services;
+
+import java.util.List;
+
+/**
+ * Familles de ressources qu'un scrape peut se passer de charger. Les motifs
+ * suivent la syntaxe de Network.setBlockedURLs (joker {@code *}).
+ */
+public enum BlockedResource {
+
+    IMAGE(List.of("*.png", "*.jpg", "*.jpeg", "*.gif", "*.webp", "*.svg", "*.ico", "*.bmp")),
+    FONT(List.of("*.woff", "*.woff2", "*.ttf", "*.otf", "*.eot")),
+    MEDIA(List.of("*.mp4", "*.webm", "*.mp3", "*.ogg", "*.m3u8", "*.wav")),
+    TRACKER(List.of(
+            "*google-analytics.com*", "*googletagmanager.com*", "*doubleclick.net*",
+            "*hotjar.com*", "*clarity.ms*", "*segment.io*", "*segment.com/analytics*",
+            "*connect.facebook.net*", "*mixpanel.com*", "*intercom.io*", "*nr-data.net*")),
+    COOKIE_BANNER(List.of(
+            "*cookielaw.org*", "*onetrust.com*", "*cookiebot.com*", "*didomi.io*",
+            "*usercentrics.eu*", "*cookieinformation.com*", "*trustarc.com*", "*axeptio.eu*"));
+
+    private final List<String> urlPatterns;
+
+    BlockedResource(List<String> urlPatterns) {
+        this.urlPatterns = urlPatterns;
+    }
+
+    public List<String> getUrlPatterns() {
+        return urlPatterns;
+    }
+}
@@ -0,0 +1,159 @@
+package com.onescan.app.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connexion DevTools au niveau du navigateur (et non d'un onglet), nécessaire
+ * pour les commandes Target.* qui créent ou suppriment des contextes. Les
+ * événements sont ignorés : seules les réponses aux commandes sont lues.
+ */
+final class BrowserCdp implements WebSocket.Listener, AutoCloseable {
+
+    private static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(15);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final StringBuilder buffer = new StringBuilder();
+    private volatile WebSocket socket;
+    private volatile boolean closed;
+
+    private BrowserCdp(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Se connecte au Chrome qui écoute sur debuggerAddress (host:port).
+     */
+    static BrowserCdp connect(String debuggerAddress, ObjectMapper objectMapper)
+            throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> version = client.send(
+                HttpRequest.newBuilder(URI.create("http://" + debuggerAddress + "/json/version")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        String url = objectMapper.readTree(version.body()).path("webSocketDebuggerUrl").asText("");
+        if (url.isEmpty()) {
+            throw new IOException("Aucune adresse DevTools sur " + debuggerAddress);
+        }
+
+        BrowserCdp cdp = new BrowserCdp(objectMapper);
+        cdp.socket = client.newWebSocketBuilder().buildAsync(URI.create(url), cdp).join();
+        return cdp;
+    }
+
+    /**
+     * Envoie une commande et attend son résultat.
+     */
+    JsonNode send(String method, Map<String, Object> params) {
+        if (closed) {
+            throw new IllegalStateException("Connexion DevTools fermée");
+        }
+        long id = ids.incrementAndGet();
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("id", id);
+        message.put("method", method);
+        message.set("params", objectMapper.valueToTree(params));
+
+        CompletableFuture<JsonNode> response = new CompletableFuture<>();
+        pending.put(id, response);
+        try {
+            // Un seul envoi à la fois sur la WebSocket
+            synchronized (this) {
+                socket.sendText(message.toString(), true).join();
+            }
+            return response.get(COMMAND_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(method + " interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(method + ": " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(method + ": pas de réponse après " + COMMAND_TIMEOUT.toSeconds() + " s");
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        buffer.append(data);
+        if (last) {
+            String text = buffer.toString();
+            buffer.setLength(0);
+            dispatch(text);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        fail("Connexion DevTools fermée (" + statusCode + ")");
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        fail("Connexion DevTools perdue: " + error.getMessage());
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        fail("Connexion DevTools fermée");
+        try {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+        } catch (Exception e) {
+            socket.abort();
+        }
+    }
+
+    private void dispatch(String text) {
+        try {
+            JsonNode message = objectMapper.readTree(text);
+            if (!message.has("id")) {
+                return;
+            }
+            CompletableFuture<JsonNode> response = pending.get(message.get("id").asLong());
+            if (response == null) {
+                return;
+            }
+            if (message.has("error")) {
+                response.completeExceptionally(new IOException(message.get("error").path("message").asText()));
+            } else {
+                response.complete(message.path("result"));
+            }
+        } catch (IOException e) {
+            System.err.println("[Chrome partagé] Message DevTools illisible: " + e.getMessage());
+        }
+    }
+
+    private void fail(String reason) {
+        closed = true;
+        pending.values().forEach(response -> response.completeExceptionally(new IOException(reason)));
+    }
+}
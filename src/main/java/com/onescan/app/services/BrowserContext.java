@@ -0,0 +1,52 @@
+package com.onescan.app.services;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Session légère ouverte dans un Chrome partagé ({@link SharedChrome}) : un
+ * contexte de navigation isolé (cookies, stockage, cache) et le chromedriver
+ * qui pilote son onglet.
+ */
+public class BrowserContext {
+
+    private final String id;
+    private final WebDriver driver;
+    private final ProcessHandle driverProcess;
+    private final Runnable disposer;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    BrowserContext(String id, WebDriver driver, ProcessHandle driverProcess, Runnable disposer) {
+        this.id = id;
+        this.driver = driver;
+        this.driverProcess = driverProcess;
+        this.disposer = disposer;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    /**
+     * Processus chromedriver rattaché au contexte (Chrome n'est pas son
+     * descendant), null si inconnu.
+     */
+    public ProcessHandle getDriverProcess() {
+        return driverProcess;
+    }
+
+    /**
+     * Supprime le contexte et ses onglets dans Chrome. Sans effet au second
+     * appel.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            disposer.run();
+        }
+    }
+}
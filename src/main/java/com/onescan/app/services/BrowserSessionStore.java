@@ -0,0 +1,175 @@
+package com.onescan.app.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onescan.app.DTO.BrowserSessionSnapshot;
+import com.onescan.app.DTO.BrowserSessionSnapshot.CookieSnapshot;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Sauvegarde par compte plateforme des cookies et du localStorage après une
+ * connexion réussie, pour éviter de refaire le login complet à chaque nouveau
+ * navigateur.
+ */
+@Component
+public class BrowserSessionStore {
+
+    private static final String READ_LOCAL_STORAGE = """
+            var items = {};
+            for (var i = 0; i < window.localStorage.length; i++) {
+                var key = window.localStorage.key(i);
+                items[key] = window.localStorage.getItem(key);
+            }
+            return items;
+            """;
+
+    private static final String WRITE_LOCAL_STORAGE = """
+            var items = arguments[0];
+            for (var key in items) {
+                window.localStorage.setItem(key, items[key]);
+            }
+            """;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${selenium.session.dir:selenium-profiles/sessions}")
+    private String sessionDir;
+
+    @Value("${selenium.session.max-age:PT12H}")
+    private Duration maxAge;
+
+    public BrowserSessionStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Capture la session du navigateur (domaine courant) pour le compte.
+     */
+    public void save(Tenant tenant, WebDriver driver) {
+        try {
+            List<CookieSnapshot> cookies = driver.manage().getCookies().stream()
+                    .map(CookieSnapshot::fromCookie)
+                    .toList();
+
+            Map<String, String> localStorage = new LinkedHashMap<>();
+            Object items = ((JavascriptExecutor) driver).executeScript(READ_LOCAL_STORAGE);
+            if (items instanceof Map<?, ?> map) {
+                map.forEach((key, value) -> localStorage.put(String.valueOf(key), String.valueOf(value)));
+            }
+
+            BrowserSessionSnapshot snapshot = new BrowserSessionSnapshot(
+                    System.currentTimeMillis(), originOf(driver.getCurrentUrl()), cookies, localStorage);
+
+            Path file = fileFor(tenant);
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), tenant.plateforme().name().toLowerCase(), ".tmp");
+            objectMapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            System.out.println("[Session] " + tenant + " : session sauvegardée (" + cookies.size() + " cookies)");
+        } catch (Exception e) {
+            System.err.println("[Session] " + tenant + " : échec de la sauvegarde: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Réinjecte la dernière session sauvegardée dans le navigateur. Retourne
+     * false si aucune session exploitable n'existe ; l'appelant doit ensuite
+     * vérifier que la session est toujours acceptée par la plateforme.
+     */
+    public boolean restore(Tenant tenant, WebDriver driver, String defaultOrigin) {
+        Optional<BrowserSessionSnapshot> saved = load(tenant);
+        if (saved.isEmpty()) {
+            return false;
+        }
+
+        try {
+            BrowserSessionSnapshot snapshot = saved.get();
+            long now = System.currentTimeMillis();
+
+            // Les cookies ne peuvent être posés que depuis leur domaine
+            String origin = snapshot.origin() != null ? snapshot.origin() : defaultOrigin;
+            driver.navigate().to(origin);
+
+            int restored = 0;
+            for (CookieSnapshot cookie : snapshot.cookies()) {
+                if (cookie.isExpired(now)) {
+                    continue;
+                }
+                try {
+                    driver.manage().addCookie(cookie.toCookie());
+                    restored++;
+                } catch (Exception e) {
+                    System.err.println("[Session] " + tenant + " : cookie ignoré " + cookie.name());
+                }
+            }
+            if (restored == 0) {
+                return false;
+            }
+
+            if (!snapshot.localStorage().isEmpty()) {
+                ((JavascriptExecutor) driver).executeScript(WRITE_LOCAL_STORAGE, snapshot.localStorage());
+            }
+
+            System.out.println("[Session] " + tenant + " : session restaurée (" + restored + " cookies)");
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Session] " + tenant + " : échec de la restauration: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Dernière session sauvegardée pour le compte, si elle n'est pas trop
+     * ancienne.
+     */
+    public Optional<BrowserSessionSnapshot> load(Tenant tenant) {
+        Path file = fileFor(tenant);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            BrowserSessionSnapshot snapshot = objectMapper.readValue(file.toFile(), BrowserSessionSnapshot.class);
+            if (snapshot.savedAt() + maxAge.toMillis() < System.currentTimeMillis()) {
+                invalidate(tenant);
+                return Optional.empty();
+            }
+            return Optional.of(snapshot);
+        } catch (IOException e) {
+            System.err.println("[Session] " + tenant + " : session illisible: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void invalidate(Tenant tenant) {
+        try {
+            Files.deleteIfExists(fileFor(tenant));
+        } catch (IOException e) {
+            System.err.println("[Session] " + tenant + " : échec de la suppression: " + e.getMessage());
+        }
+    }
+
+    private Path fileFor(Tenant tenant) {
+        return Paths.get(sessionDir, tenant.key().toLowerCase().replace('#', '-') + ".json");
+    }
+
+    private static String originOf(String url) {
+        java.net.URI uri = java.net.URI.create(url);
+        return uri.getScheme() + "://" + uri.getAuthority() + "/";
+    }
+}
@@ -0,0 +1,108 @@
+package com.onescan.app.services;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Résout le binaire chromedriver une seule fois pour toute l'application. Le
+ * chemin obtenu est mémorisé dans selenium.driver.cache-path : les démarrages
+ * suivants le réutilisent sans interroger le réseau.
+ */
+@Component
+public class ChromeDriverBinaries {
+
+    private static final String PATH_FILE = "chromedriver.path";
+
+    @Value("${selenium.driver.cache-path:selenium-profiles/drivers}")
+    private String cachePath;
+
+    private volatile boolean resolved = false;
+
+    public void ensureResolved() {
+        if (resolved) {
+            return;
+        }
+        synchronized (this) {
+            if (resolved) {
+                return;
+            }
+            long start = System.nanoTime();
+            if (!useCachedBinary()) {
+                WebDriverManager manager = WebDriverManager.chromedriver().cachePath(cachePath);
+                manager.setup();
+                rememberBinary(manager.getDownloadedDriverPath());
+            }
+            resolved = true;
+            System.out.println("[Drivers] chromedriver prêt en "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Lance une session ChromeDriver. Si le chromedriver mémorisé est refusé par
+     * le Chrome installé, il est résolu à nouveau et la session relancée une fois.
+     */
+    public ChromeDriver start(ChromeDriverService service, ChromeOptions options) {
+        ensureResolved();
+        try {
+            return new ChromeDriver(service, options);
+        } catch (SessionNotCreatedException e) {
+            System.err.println("[Drivers] chromedriver refusé, nouvelle résolution: " + e.getMessage());
+            invalidate();
+            ensureResolved();
+            return new ChromeDriver(service, options);
+        }
+    }
+
+    /**
+     * Oublie le binaire mémorisé, par exemple quand Chrome a été mis à jour et
+     * refuse l'ancien chromedriver. La prochaine résolution repasse par
+     * WebDriverManager.
+     */
+    public synchronized void invalidate() {
+        resolved = false;
+        try {
+            Files.deleteIfExists(Path.of(cachePath, PATH_FILE));
+        } catch (IOException e) {
+            System.err.println("[Drivers] Impossible de supprimer le chemin mémorisé: " + e.getMessage());
+        }
+    }
+
+    private boolean useCachedBinary() {
+        Path pathFile = Path.of(cachePath, PATH_FILE);
+        if (!Files.isRegularFile(pathFile)) {
+            return false;
+        }
+        try {
+            String binary = Files.readString(pathFile).trim();
+            if (binary.isEmpty() || !Files.isExecutable(Path.of(binary))) {
+                return false;
+            }
+            System.setProperty("webdriver.chrome.driver", binary);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void rememberBinary(String binary) {
+        if (binary == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(Path.of(cachePath));
+            Files.writeString(Path.of(cachePath, PATH_FILE), binary);
+        } catch (IOException e) {
+            System.err.println("[Drivers] Impossible de mémoriser le chemin de chromedriver: " + e.getMessage());
+        }
+    }
+}
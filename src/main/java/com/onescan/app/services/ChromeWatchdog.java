@@ -0,0 +1,143 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.DTO.WatchdogStats;
+
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Surveille périodiquement les processus chromedriver et Chrome : mesure leur
+ * mémoire et tue ceux qui n'appartiennent plus à aucun pool (quit() en échec,
+ * navigateur perdu après une erreur).
+ */
+@Component
+public class ChromeWatchdog {
+
+    private final List<DentalPlatformService> platformServices;
+    private final SharedChrome sharedChrome;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final LongAdder orphansKilled = new LongAdder();
+
+    private volatile WatchdogStats lastStats = new WatchdogStats(null, 0, 0, 0);
+
+    @Value("${selenium.watchdog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${selenium.watchdog.interval:PT1M}")
+    private Duration interval;
+
+    // Un chromedriver tout juste lancé n'est pas encore rattaché à son emplacement
+    @Value("${selenium.watchdog.grace:PT2M}")
+    private Duration grace;
+
+    @Value("${selenium.watchdog.kill-orphans:true}")
+    private boolean killOrphans;
+
+    public ChromeWatchdog(List<DentalPlatformService> platformServices, SharedChrome sharedChrome) {
+        this.platformServices = platformServices;
+        this.sharedChrome = sharedChrome;
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("chrome-watchdog-");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::sweep, Instant.now().plus(interval), interval);
+    }
+
+    public WatchdogStats getStats() {
+        return lastStats;
+    }
+
+    void sweep() {
+        try {
+            Set<Long> known = new HashSet<>(sharedChrome.getDriverPids());
+            for (DentalPlatformService service : platformServices) {
+                if (service instanceof BaseSeleniumService seleniumService) {
+                    known.addAll(seleniumService.getDriverPids());
+                }
+            }
+
+            Instant graceLimit = Instant.now().minus(grace);
+            if (killOrphans) {
+                // chromedriver lancés par l'application mais absents des pools
+                ProcessHandle.current().children()
+                        .filter(ChromeWatchdog::isChromedriver)
+                        .filter(process -> !known.contains(process.pid()))
+                        .filter(process -> startedBefore(process, graceLimit))
+                        .forEach(process -> kill(process, "chromedriver orphelin"));
+
+                // Chrome d'automatisation dont le chromedriver a disparu
+                ProcessHandle.allProcesses()
+                        .filter(ChromeWatchdog::isAutomationBrowser)
+                        .filter(process -> process.parent().map(parent -> !isChromedriver(parent)).orElse(true))
+                        .filter(process -> startedBefore(process, graceLimit))
+                        .forEach(process -> kill(process, "Chrome orphelin"));
+            }
+
+            List<ProcessHandle> processes = ProcessHandle.current().descendants()
+                    .filter(process -> isChromedriver(process) || isChrome(process))
+                    .toList();
+            long rss = processes.stream().mapToLong(ProcessMemory::rssBytes).sum();
+            lastStats = new WatchdogStats(Instant.now(), processes.size(), rss / (1024 * 1024),
+                    orphansKilled.sum());
+        } catch (Exception e) {
+            System.err.println("[Watchdog] Erreur lors de la surveillance de Chrome: " + e.getMessage());
+        }
+    }
+
+    private void kill(ProcessHandle process, String reason) {
+        System.err.println("[Watchdog] " + reason + " tué (pid " + process.pid() + ")");
+        ProcessMemory.killTree(process);
+        orphansKilled.increment();
+    }
+
+    private static boolean startedBefore(ProcessHandle process, Instant limit) {
+        return process.info().startInstant().map(start -> start.isBefore(limit)).orElse(false);
+    }
+
+    private static boolean isChromedriver(ProcessHandle process) {
+        return process.info().command().map(command -> command.contains("chromedriver")).orElse(false);
+    }
+
+    private static boolean isChrome(ProcessHandle process) {
+        return process.info().command()
+                .map(command -> command.contains("chrome") && !command.contains("chromedriver"))
+                .orElse(false);
+    }
+
+    /**
+     * Processus principal d'un Chrome headless piloté par chromedriver (les
+     * processus de rendu portent un --type).
+     */
+    private static boolean isAutomationBrowser(ProcessHandle process) {
+        if (!isChrome(process)) {
+            return false;
+        }
+        String commandLine = ProcessMemory.commandLine(process);
+        return commandLine.contains("--enable-automation")
+                && commandLine.contains("--headless")
+                && !commandLine.contains("--type=");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,128 @@
+package com.onescan.app.services;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Disjoncteur d'un compte plateforme ({@link Tenant}). Après failureThreshold
+ * échecs consécutifs il s'ouvre : les appels sont refusés sans emprunter de
+ * navigateur. À l'échéance
+ * un seul appel d'essai passe (semi-ouvert) ; s'il réussit le disjoncteur se
+ * referme, sinon il se rouvre pour une durée doublée.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Duration maxOpenDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Duration currentOpenDuration;
+    private Instant openUntil;
+    private boolean probeInFlight;
+    private long rejected;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Duration maxOpenDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.maxOpenDuration = maxOpenDuration.compareTo(openDuration) < 0 ? openDuration : maxOpenDuration;
+        this.currentOpenDuration = openDuration;
+    }
+
+    /**
+     * Autorise un appel. En semi-ouvert, seul le premier appel passe jusqu'à ce
+     * que son résultat soit connu.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && !Instant.now().isBefore(openUntil)) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    /**
+     * Vrai si un appel serait refusé maintenant, sans réserver l'essai
+     * semi-ouvert.
+     */
+    public synchronized boolean isRejecting() {
+        if (state == State.OPEN) {
+            return Instant.now().isBefore(openUntil);
+        }
+        return state == State.HALF_OPEN && probeInFlight;
+    }
+
+    /**
+     * Appel autorisé mais abandonné avant d'avoir sollicité la plateforme :
+     * libère l'essai semi-ouvert sans changer l'état.
+     */
+    public synchronized void cancel() {
+        probeInFlight = false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            System.out.println("[" + name + "] Disjoncteur refermé après un essai réussi");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        currentOpenDuration = openDuration;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            currentOpenDuration = min(currentOpenDuration.multipliedBy(2), maxOpenDuration);
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state == State.OPEN && !Instant.now().isBefore(openUntil) ? State.HALF_OPEN : state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Fin de l'ouverture en cours, null si le disjoncteur est fermé.
+     */
+    public synchronized Instant getOpenUntil() {
+        return state == State.CLOSED ? null : openUntil;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        probeInFlight = false;
+        openUntil = Instant.now().plus(currentOpenDuration);
+        System.err.println("[" + name + "] Disjoncteur ouvert pour " + currentOpenDuration.toSeconds() + " s après "
+                + consecutiveFailures + " échecs consécutifs");
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
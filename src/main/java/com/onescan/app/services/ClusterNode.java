@@ -0,0 +1,34 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+
+/**
+ * Identité de ce nœud dans le cluster (cluster.node-id, par défaut hôte-pid),
+ * inscrite dans les baux des tâches et des synchronisations.
+ */
+@Component
+public class ClusterNode {
+
+    private final String id;
+
+    public ClusterNode(@Value("${cluster.node-id:#{null}}") String id) {
+        this.id = id != null && !id.isBlank() ? id : defaultId();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String defaultId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,153 @@
+package com.onescan.app.services;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.repository.CommandeRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écriture groupée des commandes lues sur une plateforme. Les commandes déjà
+ * en base (même plateforme, propriétaire et external_id) sont relues en une
+ * requête par tranche de {@value #LOOKUP_CHUNK} puis mises à jour ; les
+ * autres sont insérées. Hibernate regroupe INSERT et UPDATE en lots
+ * (hibernate.jdbc.batch_size) : une liste de 500 lignes tient en quelques
+ * allers-retours, et une seconde synchronisation ne viole plus la contrainte
+ * d'unicité.
+ * <p>
+ * Chaque lot s'écrit dans sa propre transaction : si une synchronisation
+ * concurrente insère la même commande entre la relecture et l'INSERT, la
+ * contrainte uk_commande_owner_external_id rejette le lot, qui est rejoué une
+ * fois et met alors à jour la ligne insérée par l'autre. Les lignes sans
+ * external_id n'ont pas de clé naturelle et ne sont pas enregistrées.
+ */
+@Service
+public class CommandeStore {
+
+    private static final int LOOKUP_CHUNK = 500;
+
+    private final CommandeRepository commandeRepository;
+    private final TransactionTemplate transactions;
+
+    public CommandeStore(CommandeRepository commandeRepository, PlatformTransactionManager transactionManager) {
+        this.commandeRepository = commandeRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        // Le lot rejeté ne doit pas condamner la transaction de l'appelant ; sous
+        // SyncLeaseService.fenced, le lot est validé pendant que le verrou du bail est tenu
+        this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Insère ou met à jour commandes. Sur une commande existante, seules les
+     * colonnes de la liste sont remplacées : l'état « vu » et le commentaire
+     * déjà lu sont conservés, sauf si la ligne en apporte un.
+     *
+     * @return les commandes enregistrées, sans doublon
+     */
+    public List<Commande> upsert(List<Commande> commandes) {
+        List<Commande> merged = new ArrayList<>();
+        Map<Key, Commande> incoming = new LinkedHashMap<>();
+        int withoutKey = 0;
+        for (Commande commande : commandes) {
+            if (commande.getId() != null) {
+                // Entité déjà relue : enregistrée telle quelle
+                merged.add(commande);
+            } else if (commande.getExternalId() == null) {
+                // Sans clé naturelle, elle serait réinsérée à chaque synchronisation
+                withoutKey++;
+            } else {
+                // Une commande présente sur deux pages n'est gardée qu'une fois
+                incoming.put(Key.of(commande), commande);
+            }
+        }
+        if (withoutKey > 0) {
+            System.err.println("[CommandeStore] " + withoutKey + " commande(s) sans external_id ignorée(s)");
+        }
+
+        List<Commande> inserted = new ArrayList<>();
+        try {
+            return transactions.execute(status -> write(incoming, merged, inserted));
+        } catch (DataIntegrityViolationException e) {
+            // Insérée entre-temps par une autre synchronisation : la relecture la retrouvera
+            System.err.println("[CommandeStore] Conflit d'unicité, lot rejoué: " + e.getMostSpecificCause().getMessage());
+            inserted.forEach(commande -> commande.setId(null));
+            inserted.clear();
+            return transactions.execute(status -> write(incoming, merged, inserted));
+        }
+    }
+
+    private List<Commande> write(Map<Key, Commande> incoming, List<Commande> merged, List<Commande> inserted) {
+        Map<Key, Commande> existing = findExisting(incoming.keySet());
+        List<Commande> saved = new ArrayList<>(incoming.size() + merged.size());
+        incoming.forEach((key, commande) -> {
+            Commande stored = existing.get(key);
+            if (stored == null) {
+                inserted.add(commande);
+                saved.add(commande);
+            } else {
+                copyListColumns(commande, stored);
+                saved.add(stored);
+            }
+        });
+
+        commandeRepository.saveAll(inserted);
+        saved.addAll(commandeRepository.saveAll(merged));
+        return saved;
+    }
+
+    private Map<Key, Commande> findExisting(Iterable<Key> keys) {
+        // Une requête IN par plateforme et propriétaire (un seul groupe pendant une synchronisation)
+        Map<Scope, List<Long>> idsByScope = new LinkedHashMap<>();
+        for (Key key : keys) {
+            idsByScope.computeIfAbsent(new Scope(key.plateforme(), key.ownerId()), scope -> new ArrayList<>())
+                    .add(key.externalId());
+        }
+
+        Map<Key, Commande> existing = new HashMap<>();
+        idsByScope.forEach((scope, externalIds) -> {
+            for (int i = 0; i < externalIds.size(); i += LOOKUP_CHUNK) {
+                List<Long> chunk = externalIds.subList(i, Math.min(i + LOOKUP_CHUNK, externalIds.size()));
+                for (Commande commande : commandeRepository.findByPlateformeAndOwnerIdAndExternalIdIn(
+                        scope.plateforme(), scope.ownerId(), chunk)) {
+                    existing.put(Key.of(commande), commande);
+                }
+            }
+        });
+        return existing;
+    }
+
+    private static void copyListColumns(Commande from, Commande to) {
+        to.setRefPatient(from.getRefPatient());
+        to.setDateReception(from.getDateReception());
+        to.setFile3d(from.getFile3d());
+        to.setCabinet(from.getCabinet());
+        to.setDateEcheance(from.getDateEcheance());
+        if (from.getCommentaire() != null || from.getCommentaireFetchedAt() != null) {
+            to.setCommentaire(from.getCommentaire());
+            to.setCommentaireFetchedAt(from.getCommentaireFetchedAt());
+        }
+        if (from.getListFingerprint() != null) {
+            to.setListFingerprint(from.getListFingerprint());
+        }
+    }
+
+    private record Scope(Plateforme plateforme, Long ownerId) {
+    }
+
+    private record Key(Plateforme plateforme, Long ownerId, Long externalId) {
+
+        static Key of(Commande commande) {
+            return new Key(commande.getPlateforme(), commande.getOwnerId(), commande.getExternalId());
+        }
+    }
+}
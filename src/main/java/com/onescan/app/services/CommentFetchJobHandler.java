@@ -0,0 +1,41 @@
+package com.onescan.app.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.Entity.ScrapeJob;
+import com.onescan.app.Entity.ScrapeJobType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * COMMENT_FETCH : lit les commentaires MeditLink d'un lot de lignes de l'inbox
+ * (payload : liste JSON des lignes).
+ */
+@Component
+public class CommentFetchJobHandler implements ScrapeJobHandler {
+
+    private static final TypeReference<List<Map<String, String>>> ROWS_TYPE = new TypeReference<>() {
+    };
+
+    private final MeditLinkSeleniumService meditLinkService;
+    private final ObjectMapper objectMapper;
+
+    public CommentFetchJobHandler(MeditLinkSeleniumService meditLinkService, ObjectMapper objectMapper) {
+        this.meditLinkService = meditLinkService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ScrapeJobType getType() {
+        return ScrapeJobType.COMMENT_FETCH;
+    }
+
+    @Override
+    public void handle(ScrapeJob job, Tenant tenant) throws Exception {
+        List<Map<String, String>> rows = objectMapper.readValue(job.getPayload(), ROWS_TYPE);
+        meditLinkService.fetchCommentaires(tenant, rows);
+    }
+}
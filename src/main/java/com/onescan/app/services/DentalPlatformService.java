@@ -3,14 +3,19 @@ package com.onescan.app.services;
 import java.util.List;
 
 import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
 
 public interface DentalPlatformService {
 
+    Plateforme getPlateforme();
+
     String login();
 
     List<Commande> fetchCommandes();
 
+    List<Commande> fetchCommandes(Tenant tenant);
+
     String logout();
 
     boolean isLoggedIn();
-}
\ No newline at end of file
+}
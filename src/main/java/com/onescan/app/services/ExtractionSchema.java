@@ -0,0 +1,259 @@
+package com.onescan.app.services;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Schéma d'extraction compilé : sélecteurs prêts pour
+ * {@link BaseSeleniumService#extractRows}, expressions et formats de date
+ * compilés une seule fois, et conversion d'une ligne en {@link Commande}.
+ */
+public class ExtractionSchema {
+
+    private final Plateforme plateforme;
+    private final String rowSelector;
+    private final String containerSelector;
+    private final Map<String, String> cells;
+    private final List<Field<?>> fields;
+
+    private ExtractionSchema(Plateforme plateforme, String rowSelector, String containerSelector,
+            Map<String, String> cells, List<Field<?>> fields) {
+        this.plateforme = plateforme;
+        this.rowSelector = rowSelector;
+        this.containerSelector = containerSelector;
+        this.cells = cells;
+        this.fields = fields;
+    }
+
+    /**
+     * Compile la configuration. Une erreur (propriété inconnue, cellule non
+     * déclarée, expression ou format invalide) est levée immédiatement.
+     */
+    public static ExtractionSchema compile(Plateforme plateforme, ExtractionSchemaConfig config) {
+        if (config.rowSelector() == null || config.cells() == null || config.cells().isEmpty()) {
+            throw new IllegalStateException("[" + plateforme + "] Schéma d'extraction incomplet : row-selector et cells requis");
+        }
+
+        List<Field<?>> fields = new ArrayList<>();
+        Map<String, ExtractionSchemaConfig.FieldConfig> fieldConfigs = config.fields() != null ? config.fields() : Map.of();
+        fieldConfigs.forEach((property, field) -> {
+            if (field.cell() == null || !config.cells().containsKey(field.cell())) {
+                throw new IllegalStateException("[" + plateforme + "] Cellule inconnue pour " + property + ": " + field.cell());
+            }
+            fields.add(compileField(plateforme, property, field));
+        });
+
+        return new ExtractionSchema(plateforme, config.rowSelector(), config.containerSelector(),
+                Map.copyOf(new LinkedHashMap<>(config.cells())), List.copyOf(fields));
+    }
+
+    public String getRowSelector() {
+        return rowSelector;
+    }
+
+    public String getContainerSelector() {
+        return containerSelector;
+    }
+
+    public Map<String, String> getCells() {
+        return cells;
+    }
+
+    /**
+     * Cellule qui alimente une propriété de Commande, null si le schéma ne la
+     * lit pas.
+     */
+    public String getCell(String property) {
+        for (Field<?> field : fields) {
+            if (field.property().equals(property)) {
+                return field.cell();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Formats des cellules lues comme dates sans expression : ce sont celles
+     * que la capture réseau doit remettre au format du tableau.
+     */
+    public Map<String, DateTimeFormatter> getDateCells() {
+        Map<String, DateTimeFormatter> dateCells = new LinkedHashMap<>();
+        for (Field<?> field : fields) {
+            if (field.formatter() != null && field.pattern() == null) {
+                dateCells.put(field.cell(), field.formatter());
+            }
+        }
+        return dateCells;
+    }
+
+    /**
+     * Construit la commande d'une ligne, null si un champ obligatoire manque.
+     * Une référence externe présente mais non numérique (numéro de cas 3Shape
+     * hors format) reçoit une clé de repli {@link #fallbackKey} : la commande
+     * est enregistrée, comme avant les schémas, et retrouvée d'une
+     * synchronisation à l'autre.
+     */
+    public Commande toCommande(Map<String, String> row) {
+        return toCommande(row, (property, reason) -> {
+        });
+    }
+
+    /**
+     * Comme {@link #toCommande(Map)} ; onError reçoit la propriété et la raison
+     * (manquant, illisible) de chaque champ obligatoire absent ou valeur
+     * illisible.
+     */
+    public Commande toCommande(Map<String, String> row, BiConsumer<String, String> onError) {
+        Commande commande = new Commande();
+        commande.setPlateforme(plateforme);
+        commande.setVu(false);
+
+        for (Field<?> field : fields) {
+            if (!field.apply(commande, row, onError)) {
+                return null;
+            }
+        }
+        if (commande.getExternalId() == null) {
+            String cell = getCell("externalId");
+            String raw = cell != null ? row.get(cell) : null;
+            if (raw != null && !raw.isBlank()) {
+                commande.setExternalId(fallbackKey(raw.trim()));
+            }
+        }
+        return commande;
+    }
+
+    /**
+     * Clé externe stable dérivée du texte brut de la référence (SHA-256). Elle
+     * est toujours négative : aucune collision avec les identifiants numériques
+     * des plateformes, et elle ne fait pas avancer le watermark.
+     */
+    static long fallbackKey(String reference) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(reference.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong() | Long.MIN_VALUE;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Field<?> compileField(Plateforme plateforme, String property,
+            ExtractionSchemaConfig.FieldConfig config) {
+        Pattern pattern = config.regex() != null ? Pattern.compile(config.regex()) : null;
+        List<String> nullValues = config.nullValues() != null ? config.nullValues() : List.of();
+        boolean isDate = property.equals("dateReception") || property.equals("dateEcheance");
+        if (config.defaultToday() && !isDate) {
+            throw new IllegalStateException("[" + plateforme + "] default-today réservé aux dates: " + property);
+        }
+
+        return switch (property) {
+            case "externalId" -> new Field<>(plateforme, property, config, pattern, null, nullValues,
+                    Long::parseLong, Commande::setExternalId, null);
+            case "refPatient" -> new Field<>(plateforme, property, config, pattern, null, nullValues,
+                    Function.identity(), Commande::setRefPatient, null);
+            case "cabinet" -> new Field<>(plateforme, property, config, pattern, null, nullValues,
+                    Function.identity(), Commande::setCabinet, null);
+            case "file3d" -> new Field<>(plateforme, property, config, pattern, null, nullValues,
+                    Function.identity(), Commande::setFile3d, null);
+            case "commentaire" -> new Field<>(plateforme, property, config, pattern, null, nullValues,
+                    Function.identity(), Commande::setCommentaire, null);
+            case "dateReception", "dateEcheance" -> {
+                if (config.format() == null) {
+                    throw new IllegalStateException("[" + plateforme + "] Format de date manquant pour " + property);
+                }
+                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(config.format());
+                BiConsumer<Commande, LocalDate> setter = property.equals("dateReception")
+                        ? Commande::setDateReception
+                        : Commande::setDateEcheance;
+                yield new Field<>(plateforme, property, config, pattern, formatter, nullValues,
+                        text -> LocalDate.parse(text, formatter), setter,
+                        config.defaultToday() ? LocalDate::now : null);
+            }
+            default -> throw new IllegalStateException("[" + plateforme + "] Propriété de Commande inconnue: " + property);
+        };
+    }
+
+    private record Field<T>(
+            Plateforme plateforme,
+            String property,
+            ExtractionSchemaConfig.FieldConfig config,
+            Pattern pattern,
+            DateTimeFormatter formatter,
+            List<String> nullValues,
+            Function<String, T> parser,
+            BiConsumer<Commande, T> setter,
+            Supplier<T> fallback) {
+
+        String cell() {
+            return config.cell();
+        }
+
+        /**
+         * Renseigne la propriété ; false si elle est obligatoire et absente ou
+         * illisible. Avec default-today, une date absente ou illisible vaut la
+         * date du jour.
+         */
+        boolean apply(Commande commande, Map<String, String> row, BiConsumer<String, String> onError) {
+            String text = select(row.get(config.cell()));
+            if (text == null) {
+                text = config.defaultValue();
+            }
+            if (text == null) {
+                if (fallback != null) {
+                    setter.accept(commande, fallback.get());
+                    return true;
+                }
+                if (config.required()) {
+                    onError.accept(property, "manquant");
+                }
+                return !config.required();
+            }
+            try {
+                setter.accept(commande, parser.apply(text));
+                return true;
+            } catch (RuntimeException e) {
+                System.err.println("[" + plateforme + "] Valeur illisible pour " + property + ": " + text);
+                onError.accept(property, "illisible");
+                if (fallback != null) {
+                    setter.accept(commande, fallback.get());
+                    return true;
+                }
+                return !config.required();
+            }
+        }
+
+        private String select(String value) {
+            if (value == null) {
+                return null;
+            }
+            String text = value.trim();
+            if (text.isEmpty() || nullValues.contains(text)) {
+                return null;
+            }
+            if (pattern == null) {
+                return text;
+            }
+            Matcher matcher = pattern.matcher(text);
+            if (!matcher.find()) {
+                return null;
+            }
+            return matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+        }
+    }
+}
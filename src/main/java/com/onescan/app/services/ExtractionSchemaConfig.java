@@ -0,0 +1,43 @@
+package com.onescan.app.services;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schéma d'extraction d'une plateforme tel qu'écrit dans la configuration
+ * ({@code extraction.<plateforme>.*}), avant compilation.
+ *
+ * @param rowSelector       une ligne par commande
+ * @param containerSelector conteneur observé pour savoir quand la liste est
+ *                          rendue
+ * @param cells             cellule -> sélecteur (syntaxe de
+ *                          {@link BaseSeleniumService#extractRows})
+ * @param fields            propriété de Commande -> règle de lecture
+ */
+public record ExtractionSchemaConfig(
+        String rowSelector,
+        String containerSelector,
+        Map<String, String> cells,
+        Map<String, FieldConfig> fields) {
+
+    /**
+     * @param cell         cellule lue
+     * @param regex        expression appliquée au texte ; le premier groupe (ou
+     *                     toute la correspondance) est conservé
+     * @param format       format des dates (DateTimeFormatter)
+     * @param required     ligne ignorée si la valeur est absente
+     * @param defaultValue valeur utilisée si la cellule est absente
+     * @param nullValues   textes considérés comme absents (ex. "-")
+     * @param defaultToday dates uniquement : date du jour si la valeur est
+     *                     absente ou illisible
+     */
+    public record FieldConfig(
+            String cell,
+            String regex,
+            String format,
+            boolean required,
+            String defaultValue,
+            List<String> nullValues,
+            boolean defaultToday) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.onescan.app.services;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.Entity.Plateforme;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compile au démarrage les schémas {@code extraction.<plateforme>.*}. Un schéma
+ * invalide empêche l'application de démarrer plutôt que de produire des lignes
+ * vides au premier scrape.
+ */
+@Component
+public class ExtractionSchemaRegistry {
+
+    private final Environment environment;
+    private final Map<Plateforme, ExtractionSchema> schemas = new EnumMap<>(Plateforme.class);
+
+    public ExtractionSchemaRegistry(Environment environment) {
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void compile() {
+        Binder binder = Binder.get(environment);
+        for (Plateforme plateforme : Plateforme.values()) {
+            binder.bind("extraction." + plateforme.name().toLowerCase(), ExtractionSchemaConfig.class)
+                    .ifBound(config -> schemas.put(plateforme, ExtractionSchema.compile(plateforme, config)));
+        }
+        System.out.println("[Extraction] Schémas compilés : " + schemas.keySet());
+    }
+
+    public Optional<ExtractionSchema> get(Plateforme plateforme) {
+        return Optional.ofNullable(schemas.get(plateforme));
+    }
+}
@@ -0,0 +1,88 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.Entity.Plateforme;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * Mode enregistrement ({@code fixtures.record.enabled}) : les pages HTML
+ * rendues et les réponses JSON lues pendant un scrape réel sont sauvegardées
+ * sous {@code fixtures.dir/<plateforme>/<chemin>.html|json}, pour être
+ * rejouées hors ligne par {@link FixtureServer}.
+ */
+@Component
+public class FixtureRecorder {
+
+    // Les scripts de la plateforme ne doivent pas se relancer au rejeu
+    private static final Pattern SCRIPT_PATTERN = Pattern.compile("<script\\b[^>]*>.*?</script>",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // Liens absolus ramenés au serveur de rejeu
+    private static final Pattern ABSOLUTE_LINK_PATTERN = Pattern.compile("(href|src|action)=([\"'])https?://[^/\"']+",
+            Pattern.CASE_INSENSITIVE);
+
+    @Value("${fixtures.record.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fixtures.dir:fixtures}")
+    private String dir;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sauvegarde le DOM rendu d'une page, sans ses scripts et avec des liens
+     * relatifs.
+     */
+    public void recordPage(Plateforme plateforme, String url, String html) {
+        if (!enabled || html == null) {
+            return;
+        }
+        String cleaned = SCRIPT_PATTERN.matcher(html).replaceAll("");
+        cleaned = ABSOLUTE_LINK_PATTERN.matcher(cleaned).replaceAll("$1=$2");
+        write(plateforme, url, ".html", cleaned);
+    }
+
+    public void recordJson(Plateforme plateforme, String url, String body) {
+        if (!enabled || body == null) {
+            return;
+        }
+        write(plateforme, url, ".json", body);
+    }
+
+    /**
+     * Fichier d'une URL : son chemin sans la requête, "index" pour la racine.
+     */
+    static Path resolve(Path root, Plateforme plateforme, String path, String extension) {
+        String relative = path == null ? "" : path.replaceAll("^/+|/+$", "");
+        if (relative.isEmpty()) {
+            relative = "index";
+        }
+        Path platformDir = root.resolve(plateforme.name().toLowerCase()).normalize();
+        Path file = platformDir.resolve(relative + extension).normalize();
+        if (!file.startsWith(platformDir)) {
+            throw new IllegalArgumentException("Chemin de fixture invalide: " + path);
+        }
+        return file;
+    }
+
+    private void write(Plateforme plateforme, String url, String extension, String content) {
+        try {
+            Path file = resolve(Path.of(dir), plateforme, URI.create(url).getPath(), extension);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content, StandardCharsets.UTF_8);
+            System.out.println("[" + plateforme + "] Fixture enregistrée : " + file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("[" + plateforme + "] Enregistrement de la fixture impossible pour " + url + ": "
+                    + e.getMessage());
+        }
+    }
+}
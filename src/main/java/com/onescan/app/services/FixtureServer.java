@@ -0,0 +1,234 @@
+package com.onescan.app.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.Entity.Plateforme;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Serveur HTTP local qui rejoue les pages enregistrées par
+ * {@link FixtureRecorder}, pour mesurer et tester les scrapers sans compte ni
+ * réseau. Chaque plateforme écoute sur {@code fixtures.replay.port} + son rang
+ * ; on y pointe les services avec {@code selenium.base-url.<plateforme>}.
+ * <p>
+ * Chaque réponse est retardée de {@code fixtures.replay.latency}. Si
+ * {@code fixtures.replay.rows} est positif, les lignes du tableau (HTML) ou de
+ * la liste JSON sont dupliquées jusqu'à ce nombre avec des identifiants
+ * distincts. Sur les pages HTML, un clic sur un bouton alors qu'un mot de passe
+ * est saisi mène à {@code fixtures.replay.<plateforme>.after-login}.
+ */
+@Component
+public class FixtureServer {
+
+    private static final String REPLAY_SCRIPT = """
+            (function (cfg) {
+              document.addEventListener('submit', function (e) { e.preventDefault(); }, true);
+              document.addEventListener('click', function (e) {
+                var button = e.target.closest('button, input[type=submit], [role=button]');
+                var filled = Array.prototype.some.call(document.querySelectorAll('input[type=password]'),
+                    function (input) { return input.value; });
+                if (button && filled && cfg.afterLogin) {
+                  e.preventDefault();
+                  location.href = cfg.afterLogin;
+                }
+              }, true);
+              if (!cfg.rowSelector || cfg.rows <= 0) return;
+              var originals = Array.prototype.slice.call(document.querySelectorAll(cfg.rowSelector));
+              if (!originals.length) return;
+              var last = originals[originals.length - 1];
+              for (var i = originals.length; i < cfg.rows; i++) {
+                var copy = originals[i % originals.length].cloneNode(true);
+                var round = Math.floor(i / originals.length);
+                if (copy.id) copy.id = copy.id + '_' + round;
+                var idCell = cfg.idSelector ? copy.querySelector(cfg.idSelector) : null;
+                if (idCell) idCell.textContent = idCell.textContent.replace(/\\d{3,}/, function (d) { return d + round; });
+                last.parentNode.appendChild(copy);
+              }
+            })(%s);
+            """;
+
+    private final Environment environment;
+    private final ExtractionSchemaRegistry schemas;
+    private final ObjectMapper objectMapper;
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @Value("${fixtures.replay.enabled:false}")
+    private boolean enabled;
+
+    @Value("${fixtures.dir:fixtures}")
+    private String dir;
+
+    @Value("${fixtures.replay.port:8090}")
+    private int port;
+
+    @Value("${fixtures.replay.latency:PT0S}")
+    private Duration latency;
+
+    @Value("${fixtures.replay.rows:0}")
+    private int rows;
+
+    public FixtureServer(Environment environment, ExtractionSchemaRegistry schemas, ObjectMapper objectMapper) {
+        this.environment = environment;
+        this.schemas = schemas;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        for (Plateforme plateforme : Plateforme.values()) {
+            int platformPort = port + plateforme.ordinal();
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", platformPort), 0);
+            server.createContext("/", exchange -> handle(plateforme, exchange));
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            servers.add(server);
+            System.out.println("[Fixtures] " + plateforme + " rejoué sur http://localhost:" + platformPort
+                    + " (selenium.base-url." + plateforme.name().toLowerCase() + ")");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        servers.forEach(server -> server.stop(0));
+        servers.clear();
+    }
+
+    private void handle(Plateforme plateforme, HttpExchange exchange) throws IOException {
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+
+            // Formulaires natifs (scripts retirés) : on passe directement à la suite
+            if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Location", afterLogin(plateforme));
+                exchange.sendResponseHeaders(303, -1);
+                return;
+            }
+
+            Path root = Path.of(dir);
+            String path = exchange.getRequestURI().getPath();
+            Path html = FixtureRecorder.resolve(root, plateforme, path, ".html");
+            Path json = FixtureRecorder.resolve(root, plateforme, path, ".json");
+            if (Files.isRegularFile(html)) {
+                send(exchange, "text/html; charset=utf-8", withReplayScript(plateforme, Files.readString(html)));
+            } else if (Files.isRegularFile(json)) {
+                send(exchange, "application/json", multiplyItems(plateforme, Files.readString(json)));
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } catch (IllegalArgumentException e) {
+            exchange.sendResponseHeaders(400, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void send(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private String afterLogin(Plateforme plateforme) {
+        return environment.getProperty("fixtures.replay." + plateforme.name().toLowerCase() + ".after-login", "/");
+    }
+
+    private String withReplayScript(Plateforme plateforme, String html) throws IOException {
+        String rowSelector = null;
+        String idSelector = null;
+        ExtractionSchema schema = schemas.get(plateforme).orElse(null);
+        if (schema != null) {
+            rowSelector = schema.getRowSelector();
+            idSelector = cellSelector(schema, schema.getCell("externalId"));
+        }
+
+        Map<String, Object> config = new HashMap<>();
+        config.put("afterLogin", afterLogin(plateforme));
+        config.put("rowSelector", rowSelector);
+        config.put("idSelector", idSelector);
+        config.put("rows", rows);
+        String script = "<script>" + REPLAY_SCRIPT.formatted(objectMapper.writeValueAsString(config)) + "</script>";
+
+        int end = html.toLowerCase().lastIndexOf("</body>");
+        return end >= 0 ? html.substring(0, end) + script + html.substring(end) : html + script;
+    }
+
+    /**
+     * Sélecteur CSS simple d'une cellule, null si elle est lue depuis un
+     * ancêtre ou un attribut (non dupliquée avec un nouvel identifiant).
+     */
+    private String cellSelector(ExtractionSchema schema, String cell) {
+        String selector = cell != null ? schema.getCells().get(cell) : null;
+        if (selector == null || selector.contains(" >> ") || selector.contains("@")) {
+            return null;
+        }
+        return selector;
+    }
+
+    /**
+     * Duplique les éléments de la liste
+     * ({@code selenium.capture.<plateforme>.items-path}) jusqu'à
+     * fixtures.replay.rows, en suffixant l'identifiant externe.
+     */
+    private String multiplyItems(Plateforme plateforme, String body) throws IOException {
+        if (rows <= 0) {
+            return body;
+        }
+        String prefix = "selenium.capture." + plateforme.name().toLowerCase();
+        String itemsPath = environment.getProperty(prefix + ".items-path", "");
+        ExtractionSchema schema = schemas.get(plateforme).orElse(null);
+        String idCell = schema != null ? schema.getCell("externalId") : null;
+        String idKey = idCell != null ? environment.getProperty(prefix + ".fields." + idCell) : null;
+
+        JsonNode payload = objectMapper.readTree(body);
+        JsonNode items = itemsPath.isBlank() ? payload : payload.at(NetworkCaptureSpec.pointer(itemsPath));
+        if (!(items instanceof ArrayNode array) || array.isEmpty()) {
+            return body;
+        }
+
+        int originals = array.size();
+        for (int i = originals; i < rows; i++) {
+            JsonNode copy = array.get(i % originals).deepCopy();
+            String round = String.valueOf(i / originals);
+            if (idKey != null && copy instanceof ObjectNode item && item.hasNonNull(idKey)) {
+                JsonNode id = item.get(idKey);
+                item.set(idKey, id.isNumber()
+                        ? LongNode.valueOf(Long.parseLong(id.asText() + round))
+                        : TextNode.valueOf(id.asText().replaceFirst("(\\d{3,})", "$1" + round)));
+            }
+            array.add(copy);
+        }
+        return objectMapper.writeValueAsString(payload);
+    }
+}
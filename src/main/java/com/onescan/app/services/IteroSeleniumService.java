@@ -1,51 +1,50 @@
 package com.onescan.app.services;
 
-import io.github.cdimascio.dotenv.Dotenv;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.onescan.app.Entity.Commande;
 import com.onescan.app.Entity.Plateforme;
-import com.onescan.app.repository.CommandeRepository;
 
 import java.time.Duration;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Service
 public class IteroSeleniumService extends BaseSeleniumService {
 
-    private final Dotenv dotenv = Dotenv.load();
-
     private static final String BASE_URL = "https://bff.cloud.myitero.com";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
-    @Autowired
-    private CommandeRepository commandeRepository;
+    @Override
+    public Plateforme getPlateforme() {
+        return Plateforme.ITERO;
+    }
+
+    @Override
+    protected String getBaseUrl() {
+        return BASE_URL;
+    }
 
     /**
      * Connexion à la plateforme Itero.
      */
     @Override
-    public String login() {
+    protected String performLogin() {
         initializeDriver();
 
-        if (isLoggedIn && verifyLoggedIn()) {
+        if (resumeSession()) {
             return "Déjà connecté.";
         }
 
-        String email = dotenv.get("ITERO_USERNAME");
-        String password = dotenv.get("ITERO_PASSWORD");
+        String email = username("ITERO_USERNAME");
+        String password = password("ITERO_PASSWORD");
 
         try {
-            driver.get(BASE_URL + "/login-legacy");
+            loadPage(baseUrl() + "/login-legacy");
 
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
+            WebDriverWait wait = pageWait("login", Duration.ofSeconds(15));
 
             WebElement emailField = wait.until(ExpectedConditions.elementToBeClickable(
                     By.cssSelector("input[formcontrolname='username']")));
@@ -64,7 +63,7 @@ public class IteroSeleniumService extends BaseSeleniumService {
             // Attendre la redirection vers la page d'accueil après connexion
             wait.until(ExpectedConditions.urlContains("/labs/home"));
 
-            isLoggedIn = true;
+            onLoginSucceeded();
             return "Connexion réussie.";
         } catch (Exception e) {
             handleError(e);
@@ -72,22 +71,11 @@ public class IteroSeleniumService extends BaseSeleniumService {
         }
     }
 
-    /**
-     * Extraction d’un texte depuis un élément avec gestion d’erreur.
-     */
-    private String getText(WebElement row, String selector) {
-        try {
-            return row.findElement(By.cssSelector(selector)).getText().trim();
-        } catch (NoSuchElementException e) {
-            return "";
-        }
-    }
-
     /**
      * Récupération des commandes depuis Itero.
      */
     @Override
-    public List<Commande> fetchCommandes() {
+    protected List<Commande> scrapeCommandes() {
         List<Commande> commandes = new ArrayList<>();
 
         if (!ensureLoggedIn()) {
@@ -96,44 +84,19 @@ public class IteroSeleniumService extends BaseSeleniumService {
         }
 
         try {
-            driver.navigate().to(BASE_URL + "/labs/home");
-
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-
-            List<WebElement> rows = wait.until(ExpectedConditions
-                    .presenceOfAllElementsLocatedBy(By.cssSelector("tr[id^='tableRow_']")));
-
-            for (WebElement row : rows) {
-                try {
-                    String dateReception = getText(row, ".col-received > div");
-                    String externalId = getText(row, ".col-order-id > div");
-                    String refPatient = getText(row, ".col-patient-name > div");
-                    String cabinet = getText(row, ".col-practice-name > div");
-                    String dateLivraison = getText(row, ".col-due-date");
-
-                    // Ignorer les lignes incomplètes
-                    if (externalId.isEmpty() || refPatient.isEmpty())
-                        continue;
-
-                    Commande commande = new Commande();
-                    commande.setExternalId(Long.parseLong(externalId));
-                    commande.setRefPatient(refPatient);
-                    commande.setCabinet(cabinet);
-                    commande.setDateReception(LocalDate.parse(dateReception, DATE_FORMATTER));
-                    commande.setDateEcheance(LocalDate.parse(dateLivraison, DATE_FORMATTER));
-                    commande.setVu(false);
-                    commande.setPlateforme(Plateforme.ITERO);
-
-                    commandes.add(commande);
-
-                } catch (Exception e) {
-                    System.err.println("⚠️ Ligne ignorée (erreur parsing): " + e.getMessage());
-                }
+            // Réponses JSON du BFF si la capture réseau est activée, sinon le tableau
+            List<Map<String, String>> rows = captureRows(baseUrl() + "/labs/home").orElse(null);
+            if (rows != null) {
+                commandes = persistFullList(rows);
+            } else {
+                loadPage(baseUrl() + "/labs/home");
+
+
+                awaitStable("liste", schema().getContainerSelector(), schema().getRowSelector(), Duration.ofSeconds(15));
+                commandes = scrapeAllPages(schema().getContainerSelector(), schema().getRowSelector(), schema().getCells());
             }
 
-            if (!commandes.isEmpty()) {
-                commandeRepository.saveAll(commandes);
-            } else {
+            if (commandes.isEmpty()) {
                 System.out.println("Aucune commande trouvée ou contenu vide.");
             }
 
@@ -149,13 +112,10 @@ public class IteroSeleniumService extends BaseSeleniumService {
      * Déconnexion et fermeture du navigateur.
      */
     @Override
-    public String logout() {
-        if (driver != null) {
-            closeDriver();
-            isLoggedIn = false;
-            return "Déconnexion réussie.";
-        }
-        return "Déjà déconnecté.";
+    protected String performLogout() {
+        closeDriver();
+        setSessionLoggedIn(false);
+        return "Déconnexion réussie.";
     }
 
     /**
@@ -167,8 +127,8 @@ public class IteroSeleniumService extends BaseSeleniumService {
             return false;
 
         try {
-            driver.navigate().to(BASE_URL + "/labs/home");
-            new WebDriverWait(driver, Duration.ofSeconds(10))
+            loadPage(baseUrl() + "/labs/home");
+            pageWait("session", Duration.ofSeconds(10))
                     .until(ExpectedConditions.presenceOfElementLocated(By.cssSelector(".image-link")));
             return true;
         } catch (Exception e) {
@@ -0,0 +1,225 @@
+package com.onescan.app.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import com.onescan.app.DTO.BrowserSessionSnapshot;
+import com.onescan.app.Entity.Plateforme;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+
+/**
+ * Lignes de liste lues dans les réponses JSON d'une plateforme plutôt que dans
+ * le DOM : directement sur son API avec la session sauvegardée (mode HTTP,
+ * {@code selenium.http.<plateforme>.*}), ou capturées pendant le chargement
+ * d'une page ({@code selenium.capture.<plateforme>.*}). Les deux modes
+ * partagent la même correspondance JSON -> cellules.
+ */
+@Service
+public class JsonRowReader {
+
+    private final Environment environment;
+    private final BrowserSessionStore sessionStore;
+    private final SessionHttpClient sessionHttpClient;
+    private final FixtureRecorder fixtureRecorder;
+    private final ObjectMapper objectMapper;
+    private final ScrapeMetrics scrapeMetrics;
+    private final ExtractionSchemaRegistry extractionSchemas;
+
+    // Correspondance JSON -> cellules, résolue une fois par plateforme
+    private final Map<Plateforme, Optional<NetworkCaptureSpec>> responseMappings = new ConcurrentHashMap<>();
+
+    @Value("${selenium.capture.timeout:PT20S}")
+    private Duration captureTimeout;
+
+    @Value("${selenium.http.max-concurrency:8}")
+    private int httpMaxConcurrency;
+
+    public JsonRowReader(Environment environment, BrowserSessionStore sessionStore,
+            SessionHttpClient sessionHttpClient, FixtureRecorder fixtureRecorder, ObjectMapper objectMapper,
+            ScrapeMetrics scrapeMetrics, ExtractionSchemaRegistry extractionSchemas) {
+        this.environment = environment;
+        this.sessionStore = sessionStore;
+        this.sessionHttpClient = sessionHttpClient;
+        this.fixtureRecorder = fixtureRecorder;
+        this.objectMapper = objectMapper;
+        this.scrapeMetrics = scrapeMetrics;
+        this.extractionSchemas = extractionSchemas;
+    }
+
+    /**
+     * Mode hybride ({@code selenium.http.<plateforme>.enabled}) : la liste
+     * entière est lue sur list-url avec la session sauvegardée par le dernier
+     * login navigateur. Vide si le mode est désactivé ou si la session est
+     * absente ou expirée ; la synchronisation repasse alors par Chrome, qui se
+     * reconnecte et sauvegarde une nouvelle session.
+     */
+    public Optional<List<Map<String, String>>> listOverHttp(Plateforme plateforme, Tenant tenant) {
+        String listUrl = httpProperty(plateforme, "list-url");
+        if (!isHttpModeEnabled(plateforme) || listUrl == null) {
+            return Optional.empty();
+        }
+
+        Optional<List<Map<String, String>>> rows = httpRows(plateforme, tenant, listUrl);
+        if (rows.isEmpty()) {
+            System.out.println("[" + plateforme + "] Session HTTP absente ou expirée, passage par Chrome");
+        }
+        return rows;
+    }
+
+    public boolean isHttpModeEnabled(Plateforme plateforme) {
+        return Binder.get(environment).bind(httpPrefix(plateforme) + ".enabled", Boolean.class).orElse(false);
+    }
+
+    public String httpProperty(Plateforme plateforme, String name) {
+        return environment.getProperty(httpPrefix(plateforme) + "." + name);
+    }
+
+    /**
+     * GET sur l'API de la plateforme avec la session sauvegardée du compte, vide
+     * si aucune session n'est disponible ou si elle est refusée.
+     */
+    public Optional<String> httpGet(Plateforme plateforme, Tenant tenant, String url) {
+        return httpGetAsync(plateforme, tenant, url).join();
+    }
+
+    public CompletableFuture<Optional<String>> httpGetAsync(Plateforme plateforme, Tenant tenant, String url) {
+        Optional<BrowserSessionSnapshot> session = sessionStore.load(tenant);
+        if (session.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return sessionHttpClient.getAsync(session.get(), url, httpProperty(plateforme, "token-storage-key"))
+                .thenApply(body -> {
+                    body.ifPresent(json -> fixtureRecorder.recordJson(plateforme, url, json));
+                    return body;
+                });
+    }
+
+    /**
+     * GET parallèles, au plus selenium.http.max-concurrency en vol à la fois.
+     */
+    public Map<String, Optional<String>> httpGetAll(Plateforme plateforme, Tenant tenant, Collection<String> urls) {
+        Semaphore inFlight = new Semaphore(Math.max(1, httpMaxConcurrency));
+        Map<String, CompletableFuture<Optional<String>>> futures = new LinkedHashMap<>();
+        for (String url : urls) {
+            inFlight.acquireUninterruptibly();
+            futures.put(url, httpGetAsync(plateforme, tenant, url)
+                    .exceptionally(e -> Optional.empty())
+                    .whenComplete((body, e) -> inFlight.release()));
+        }
+
+        Map<String, Optional<String>> bodies = new LinkedHashMap<>();
+        futures.forEach((url, future) -> bodies.put(url, future.join()));
+        return bodies;
+    }
+
+    /**
+     * Lignes lues directement sur l'API, avec la même correspondance JSON que la
+     * capture réseau. Vide si la session HTTP est absente ou refusée.
+     */
+    public Optional<List<Map<String, String>>> httpRows(Plateforme plateforme, Tenant tenant, String url) {
+        Optional<NetworkCaptureSpec> mapping = responseMapping(plateforme);
+        if (mapping.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            Optional<String> body = httpGet(plateforme, tenant, url);
+            if (body.isEmpty()) {
+                return Optional.empty();
+            }
+            List<Map<String, String>> rows = mapping.get().toRows(objectMapper.readTree(body.get()));
+            scrapeMetrics.rowsExtracted(plateforme, "http", rows.size());
+            return Optional.of(rows);
+        } catch (Exception e) {
+            System.err.println("[" + plateforme + "] Erreur lecture HTTP: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Charge la page (loadPage) en écoutant le réseau du navigateur et construit
+     * les lignes directement à partir des réponses JSON de la plateforme.
+     * Retourne Optional.empty() si la capture est désactivée ou n'a rien donné ;
+     * l'appelant revient alors à l'extraction depuis le DOM.
+     */
+    public Optional<List<Map<String, String>>> captureRows(Plateforme plateforme, WebDriver driver, String pageUrl,
+            Runnable loadPage) {
+        Optional<NetworkCaptureSpec> spec = responseMapping(plateforme);
+        boolean enabled = Binder.get(environment)
+                .bind(capturePrefix(plateforme) + ".enabled", Boolean.class).orElse(false);
+        if (!enabled || spec.isEmpty() || spec.get().urlPattern() == null || !NetworkCapture.isSupported(driver)) {
+            return Optional.empty();
+        }
+
+        try (NetworkCapture capture = new NetworkCapture(driver, spec.get().urlPattern())) {
+            loadPage.run();
+            List<String> bodies = capture.awaitBodies(captureTimeout, Duration.ofSeconds(1));
+
+            List<Map<String, String>> rows = new ArrayList<>();
+            for (int i = 0; i < bodies.size(); i++) {
+                fixtureRecorder.recordJson(plateforme, i == 0 ? pageUrl : pageUrl + "-" + (i + 1), bodies.get(i));
+                rows.addAll(spec.get().toRows(objectMapper.readTree(bodies.get(i))));
+            }
+            if (rows.isEmpty()) {
+                System.err.println("[" + plateforme + "] Aucune réponse réseau exploitable, retour au DOM");
+                return Optional.empty();
+            }
+
+            System.out.println("[" + plateforme + "] " + rows.size() + " lignes capturées depuis "
+                    + bodies.size() + " réponses réseau");
+            scrapeMetrics.rowsExtracted(plateforme, "capture", rows.size());
+            return Optional.of(rows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (Exception e) {
+            System.err.println("[" + plateforme + "] Échec de la capture réseau: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Correspondance JSON -> cellules de la plateforme. Les dates sont remises
+     * au format du tableau : celles que le schéma d'extraction lit comme des
+     * dates.
+     */
+    Optional<NetworkCaptureSpec> responseMapping(Plateforme plateforme) {
+        return responseMappings.computeIfAbsent(plateforme, key -> {
+            String prefix = capturePrefix(plateforme);
+            Binder binder = Binder.get(environment);
+            String urlPattern = binder.bind(prefix + ".url-pattern", String.class).orElse(null);
+            Map<String, String> fields = binder.bind(prefix + ".fields", Bindable.mapOf(String.class, String.class))
+                    .orElse(Map.of());
+            if (fields.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new NetworkCaptureSpec(urlPattern != null ? Pattern.compile(urlPattern) : null,
+                    binder.bind(prefix + ".items-path", String.class).orElse(""),
+                    fields,
+                    extractionSchemas.get(plateforme).map(ExtractionSchema::getDateCells).orElse(Map.of())));
+        });
+    }
+
+    private static String httpPrefix(Plateforme plateforme) {
+        return "selenium.http." + plateforme.name().toLowerCase();
+    }
+
+    private static String capturePrefix(Plateforme plateforme) {
+        return "selenium.capture." + plateforme.name().toLowerCase();
+    }
+}
@@ -0,0 +1,41 @@
+package com.onescan.app.services;
+
+import java.util.Arrays;
+
+/**
+ * Dernières durées observées pour une attente, pour en déduire un délai à
+ * partir d'un percentile plutôt que d'une constante.
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    public LatencyWindow(int capacity) {
+        this.samples = new long[Math.max(1, capacity)];
+    }
+
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Percentile (0..1) des durées de la fenêtre, 0 si elle est vide.
+     */
+    public synchronized long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,12 @@
+package com.onescan.app.services;
+
+/**
+ * Le bail demandé est détenu par un autre nœud, ou a été perdu : l'opération
+ * n'a pas eu lieu sur ce nœud.
+ */
+public class LeaseUnavailableException extends IllegalStateException {
+
+    public LeaseUnavailableException(String message) {
+        super(message);
+    }
+}
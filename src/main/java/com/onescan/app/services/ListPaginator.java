@@ -0,0 +1,138 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Parcours d'une liste page par page (ou défilement par défilement) selon
+ * {@code selenium.pagination.<plateforme>.*}. La lecture d'une page et le
+ * passage à la suivante sont fournis par le scraper ({@link Pages}) ; ce
+ * service décide quand s'arrêter et signale à la synchronisation si la fin de
+ * la liste a été atteinte.
+ */
+@Service
+public class ListPaginator {
+
+    /**
+     * Pages d'une liste ouverte dans un navigateur.
+     */
+    public interface Pages {
+
+        /**
+         * Lignes de la page courante, en ignorant les fromIndex premières (déjà
+         * lues lors d'un défilement précédent).
+         */
+        List<Map<String, String>> read(int fromIndex);
+
+        /**
+         * Passe à la page suivante ; false s'il n'y en a plus.
+         */
+        boolean nextPage(Pagination pagination);
+
+        /**
+         * Fait défiler pour charger plus de knownRows lignes ; false si rien
+         * n'arrive.
+         */
+        boolean scrollForMore(Pagination pagination, int knownRows);
+    }
+
+    private final Environment environment;
+
+    @Value("${selenium.pagination.max-pages:50}")
+    private int defaultMaxPages;
+
+    @Value("${selenium.pagination.settle-timeout:PT10S}")
+    private Duration defaultSettleTimeout;
+
+    @Value("${selenium.pagination.max-returned:500}")
+    private int maxReturned;
+
+    public ListPaginator(Environment environment) {
+        this.environment = environment;
+    }
+
+    public Pagination getPagination(Plateforme plateforme) {
+        String prefix = "selenium.pagination." + plateforme.name().toLowerCase();
+        Binder binder = Binder.get(environment);
+        Pagination.Mode mode = binder.bind(prefix + ".mode", Pagination.Mode.class).orElse(Pagination.Mode.NONE);
+        String nextSelector = binder.bind(prefix + ".next-selector", String.class).orElse(null);
+        if (mode == Pagination.Mode.NEXT_BUTTON && nextSelector == null) {
+            mode = Pagination.Mode.NONE;
+        }
+        return new Pagination(mode, nextSelector,
+                binder.bind(prefix + ".scroll-container", String.class).orElse(null),
+                binder.bind(prefix + ".max-pages", Integer.class).orElse(defaultMaxPages),
+                binder.bind(prefix + ".settle-timeout", Duration.class).orElse(defaultSettleTimeout));
+    }
+
+    /**
+     * Lit toutes les pages et sauvegarde chacune (persist) dès qu'elle est lue.
+     * Le parcours s'arrête à la dernière page, au watermark de run ou au budget
+     * max-pages ; seule la dernière page atteinte marque run comme lu jusqu'au
+     * bout. Seules les max-returned premières commandes sont gardées en mémoire
+     * pour la réponse ; les suivantes sont uniquement sauvegardées.
+     *
+     * @param run synchronisation en cours, null hors synchronisation
+     */
+    public List<Commande> readAll(Plateforme plateforme, Pagination pagination, Pages pages,
+            Function<List<Map<String, String>>, List<Commande>> persist, SyncRun run) {
+        List<Commande> returned = new ArrayList<>();
+        long total = 0;
+        int read = 0;
+        int offset = 0;
+
+        while (true) {
+            List<Map<String, String>> rows = pages.read(pagination.mode() == Pagination.Mode.SCROLL ? offset : 0);
+            read++;
+            offset += rows.size();
+
+            List<Commande> saved = persist.apply(rows);
+            total += saved.size();
+            for (Commande commande : saved) {
+                if (returned.size() < maxReturned) {
+                    returned.add(commande);
+                }
+            }
+
+            if (pagination.mode() == Pagination.Mode.NONE) {
+                if (run != null) {
+                    run.reachEnd();
+                }
+                break;
+            }
+            if (run != null && run.isWatermarkReached()) {
+                System.out.println("[" + plateforme + "] Watermark du " + run.getSince()
+                        + " atteint, pages suivantes ignorées");
+                break;
+            }
+            if (read >= pagination.maxPages()) {
+                System.out.println("[" + plateforme + "] Budget de " + pagination.maxPages()
+                        + " pages atteint, parcours arrêté");
+                break;
+            }
+            boolean more = pagination.mode() == Pagination.Mode.SCROLL
+                    ? pages.scrollForMore(pagination, offset)
+                    : pages.nextPage(pagination);
+            if (!more) {
+                if (run != null) {
+                    run.reachEnd();
+                }
+                break;
+            }
+        }
+
+        System.out.println("[" + plateforme + "] " + total + " commandes sauvegardées sur " + read + " pages");
+        return returned;
+    }
+}
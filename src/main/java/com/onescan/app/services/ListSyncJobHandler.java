@@ -0,0 +1,36 @@
+package com.onescan.app.services;
+
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.DTO.PlatformSyncResult;
+import com.onescan.app.Entity.ScrapeJob;
+import com.onescan.app.Entity.ScrapeJobType;
+
+/**
+ * LIST_SYNC : synchronise la liste des commandes d'un compte sur le nœud qui
+ * a pris la tâche.
+ */
+@Component
+public class ListSyncJobHandler implements ScrapeJobHandler {
+
+    private final PlatformSyncService platformSyncService;
+
+    public ListSyncJobHandler(PlatformSyncService platformSyncService) {
+        this.platformSyncService = platformSyncService;
+    }
+
+    @Override
+    public ScrapeJobType getType() {
+        return ScrapeJobType.LIST_SYNC;
+    }
+
+    @Override
+    public void handle(ScrapeJob job, Tenant tenant) {
+        // TIMEOUT : le scrape continue sur ce nœud et sauvegardera ses commandes à la fin
+        // AUTRE_NOEUD : le compte est déjà en cours de synchronisation ailleurs
+        PlatformSyncResult result = platformSyncService.syncNow(tenant).join();
+        if ("ERREUR".equals(result.statut())) {
+            throw new IllegalStateException(result.erreur());
+        }
+    }
+}
@@ -1,56 +1,105 @@
 package com.onescan.app.services;
 
-import io.github.cdimascio.dotenv.Dotenv;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.onescan.app.Entity.Commande;
 import com.onescan.app.Entity.Plateforme;
-import com.onescan.app.repository.CommandeRepository;
+import com.onescan.app.Entity.ScrapeJobType;
 
 import java.time.Duration;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Service
 public class MeditLinkSeleniumService extends BaseSeleniumService {
     private static final String BASE_URL = "https://www.meditlink.com";
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
-    private final Dotenv dotenv = Dotenv.load();
+    @Value("${meditlink.comments.concurrency:2}")
+    private int commentConcurrency;
+
+    @Value("${meditlink.comments.rate.initial:2.0}")
+    private double commentInitialRate;
+
+    @Value("${meditlink.comments.rate.min:0.2}")
+    private double commentMinRate;
+
+    @Value("${meditlink.comments.rate.max:5.0}")
+    private double commentMaxRate;
+
+    @Value("${meditlink.comments.slow-threshold:PT5S}")
+    private Duration commentSlowThreshold;
+
+    @Value("${meditlink.comments.max-attempts:3}")
+    private int commentMaxAttempts;
+
+    @Value("${meditlink.comments.ttl:PT24H}")
+    private Duration commentTtl;
+
+    @Value("${meditlink.comments.list-refresh:PT5M}")
+    private Duration commentListRefresh;
+
+    // Lignes par tâche COMMENT_FETCH quand la file de tâches est active
+    @Value("${meditlink.comments.job-batch:50}")
+    private int commentJobBatch;
 
     @Autowired
-    private CommandeRepository commandeRepository;
+    private ScrapeJobQueue jobQueue;
+
+    // Dernière comparaison de l'inbox avec les commentaires en base, par compte (Tenant.key())
+    private final Map<String, Instant> lastCommentListChecks = new ConcurrentHashMap<>();
 
     @Override
-    public String login() {
-        if (isLoggedIn && verifyLoggedIn()) {
+    public Plateforme getPlateforme() {
+        return Plateforme.MEDITLINK;
+    }
+
+    @Override
+    protected String getBaseUrl() {
+        return BASE_URL;
+    }
+
+    @Override
+    protected String performLogin() {
+        initializeDriver();
+
+        if (resumeSession()) {
             return "Déjà connecté.";
         }
 
-        initializeDriver();
-        String email = dotenv.get("MEDITLINK_USERNAME");
-        String password = dotenv.get("MEDITLINK_PASSWORD");
+        String email = username("MEDITLINK_USERNAME");
+        String password = password("MEDITLINK_PASSWORD");
 
         try {
             // 1. Accès à la page de login
-            driver.get("https://www.meditlink.com/login");
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(20));
+            loadPage(baseUrl() + "/login");
+            WebDriverWait wait = pageWait("login", Duration.ofSeconds(20));
 
             // 2. Saisie des identifiants avec vérification des champs
             WebElement emailField = wait.until(ExpectedConditions.visibilityOfElementLocated(
                     By.cssSelector("input#input-login-id.text-box-input")));
             emailField.clear();
-            if (emailField.getAttribute("maxlength") != null &&
-                    Integer.parseInt(emailField.getAttribute("maxlength")) > 0) {
-                email = email.substring(0, Integer.parseInt(emailField.getAttribute("maxlength")));
+            String maxLength = emailField.getDomAttribute("maxlength");
+            if (maxLength != null && Integer.parseInt(maxLength) > 0) {
+                email = email.substring(0, Math.min(email.length(), Integer.parseInt(maxLength)));
             }
             emailField.sendKeys(email);
 
@@ -64,25 +113,28 @@ public class MeditLinkSeleniumService extends BaseSeleniumService {
                     By.cssSelector("button#btn-login")));
 
             // Attendre que l'animation soit terminée (si classe fade-out présente)
-            wait.until(driver -> !loginButton.getAttribute("class").contains("fade-out"));
+            wait.until(driver -> {
+                String classes = loginButton.getDomAttribute("class");
+                return classes == null || !classes.contains("fade-out");
+            });
 
             // Clique via JavaScript pour éviter les problèmes d'interception
-            ((JavascriptExecutor) driver).executeScript("arguments[0].click();", loginButton);
+            ((JavascriptExecutor) driver()).executeScript("arguments[0].click();", loginButton);
 
             // 4. Attente de la redirection vers l'inbox
             wait.until(ExpectedConditions.urlContains("inbox"));
 
             // 5. Fermeture du popup si présent
-            try {
-                WebElement closePopupButton = wait.until(ExpectedConditions.elementToBeClickable(
-                        By.cssSelector("div.icon-wrapper.md-icon.xxs[rounded='false']")));
-                ((JavascriptExecutor) driver).executeScript("arguments[0].click();", closePopupButton);
-                wait.until(ExpectedConditions.invisibilityOf(closePopupButton));
-            } catch (Exception e) {
+            Optional<WebElement> closePopupButton = probe(ExpectedConditions.elementToBeClickable(
+                    By.cssSelector("div.icon-wrapper.md-icon.xxs[rounded='false']")));
+            if (closePopupButton.isPresent()) {
+                ((JavascriptExecutor) driver()).executeScript("arguments[0].click();", closePopupButton.get());
+                wait.until(ExpectedConditions.invisibilityOf(closePopupButton.get()));
+            } else {
                 System.out.println("Aucun popup à fermer détecté");
             }
 
-            isLoggedIn = true;
+            onLoginSucceeded();
             return "Connexion réussie.";
 
         } catch (Exception e) {
@@ -92,7 +144,7 @@ public class MeditLinkSeleniumService extends BaseSeleniumService {
     }
 
     @Override
-    public List<Commande> fetchCommandes() {
+    protected List<Commande> scrapeCommandes() {
         List<Commande> commandes = new ArrayList<>();
 
         if (!ensureLoggedIn()) {
@@ -101,30 +153,21 @@ public class MeditLinkSeleniumService extends BaseSeleniumService {
         }
 
         try {
-            driver.navigate().to(BASE_URL + "/inbox");
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(40));
+            // Réponses JSON de l'inbox si la capture réseau est activée, sinon le tableau
+            List<Map<String, String>> rows = captureRows(baseUrl() + "/inbox").orElse(null);
+            if (rows != null) {
+                commandes = persistFullList(rows);
+            } else {
+                loadPage(baseUrl() + "/inbox");
 
-            // Attente du chargement du tableau
-            By tableRowLocator = By.cssSelector("tr.main-body-tr");
-            wait.until(ExpectedConditions.presenceOfElementLocated(tableRowLocator));
+                // Attente du rendu complet du tableau
+                awaitStable("liste", schema().getContainerSelector(), schema().getRowSelector(), Duration.ofSeconds(40));
 
-            // Extraction des données
-            List<WebElement> rows = driver.findElements(tableRowLocator);
-            for (WebElement row : rows) {
-                try {
-                    Commande commande = extractCommandeFromRow(row);
-                    if (commande != null) {
-                        commandes.add(commande);
-                    }
-                } catch (Exception e) {
-                    System.err.println("[MeditLink] Erreur extraction ligne: " + e.getMessage());
-                }
+                // Extraction et sauvegarde page par page
+                commandes = scrapeAllPages(schema().getContainerSelector(), schema().getRowSelector(), schema().getCells());
             }
 
-            // Sauvegarde en base
-            if (!commandes.isEmpty()) {
-                commandeRepository.saveAll(commandes);
-            } else {
+            if (commandes.isEmpty()) {
                 System.out.println("[MeditLink] Aucune commande trouvée");
             }
 
@@ -136,58 +179,31 @@ public class MeditLinkSeleniumService extends BaseSeleniumService {
         return commandes;
     }
 
-    private Commande extractCommandeFromRow(WebElement row) {
-        String patientName = row.findElement(By.cssSelector("td:nth-child(3) span")).getText().trim();
-        String externalId = row.findElement(By.cssSelector("td:nth-child(7) span")).getText().trim();
-
-        if (patientName.isEmpty() || externalId.isEmpty()) {
-            return null;
-        }
-
-        Commande commande = new Commande();
-        commande.setRefPatient(patientName);
-        commande.setExternalId(Long.parseLong(externalId));
-        commande.setVu(false);
-        commande.setPlateforme(Plateforme.MEDITLINK);
-        commande.setCabinet(row.findElement(By.cssSelector("td:nth-child(6) span")).getText().trim());
-
-        try {
-            String creationDateStr = row.findElement(By.cssSelector("td:nth-child(4) span")).getText().trim();
-            String dueDateStr = row.findElement(By.cssSelector("td:nth-child(5) span")).getText().trim();
-            commande.setDateReception(LocalDate.parse(creationDateStr, DATE_FORMATTER));
-            commande.setDateEcheance(LocalDate.parse(dueDateStr, DATE_FORMATTER));
-        } catch (Exception e) {
-            System.err.println("[MeditLink] Erreur parsing dates: " + e.getMessage());
-        }
-
-        return commande;
-    }
-
     @Override
-    public String logout() {
-        if (driver == null) {
+    protected String performLogout() {
+        if (driver() == null) {
             return "Déjà déconnecté.";
         }
 
         try {
-            driver.get(BASE_URL + "/logout");
+            loadPage(baseUrl() + "/logout");
             return "Déconnexion réussie.";
         } catch (Exception e) {
             return "Erreur déconnexion: " + e.getMessage();
         } finally {
             closeDriver();
-            isLoggedIn = false;
+            setSessionLoggedIn(false);
         }
     }
 
     @Override
     protected boolean verifyLoggedIn() {
-        if (driver == null)
+        if (driver() == null)
             return false;
 
         try {
-            driver.navigate().to(BASE_URL + "/dashboard");
-            new WebDriverWait(driver, Duration.ofSeconds(10))
+            loadPage(baseUrl() + "/dashboard");
+            pageWait("session", Duration.ofSeconds(10))
                     .until(ExpectedConditions.urlContains("dashboard"));
             return true;
         } catch (Exception e) {
@@ -196,109 +212,423 @@ public class MeditLinkSeleniumService extends BaseSeleniumService {
     }
 
     /**
-     * Récupère le commentaire d'une commande spécifique
+     * Récupère le commentaire d'une commande du compte tenant. Le commentaire en
+     * base est renvoyé tel quel tant qu'il a moins de meditlink.comments.ttl, si
+     * le compte est en cours de synchronisation sur un autre nœud, ou si son
+     * disjoncteur est ouvert.
      * 
      * @param externalId L'ID externe de la commande
      * @return Le commentaire ou null si non trouvé/erreur
+     * @throws PlatformUnavailableException si le disjoncteur est ouvert et
+     *                                      qu'aucun commentaire n'est en base
      */
-    public String getCommentaire(Long externalId) {
+    public String getCommentaire(Tenant tenant, Long externalId) {
+        Optional<Commande> cached = commandeRepository.findByPlateformeAndOwnerIdAndExternalId(Plateforme.MEDITLINK,
+                tenant.ownerId(), externalId);
+        if (cached.isPresent() && isCommentaireFresh(cached.get())) {
+            return cached.get().getCommentaire();
+        }
+        try {
+            return runExclusive(tenant, () -> readCommentaire(cached, externalId));
+        } catch (LeaseUnavailableException e) {
+            return cached.map(Commande::getCommentaire).orElse(null);
+        } catch (PlatformUnavailableException e) {
+            if (cached.isEmpty()) {
+                throw e;
+            }
+            return cached.get().getCommentaire();
+        }
+    }
+
+    private String readCommentaire(Optional<Commande> cached, Long externalId) {
+        String commentaire = null;
+        String detailUrl = detailApiUrl(externalId);
+        if (detailUrl != null) {
+            commentaire = httpGet(detailUrl).map(this::parseCommentaire).orElse(null);
+        }
+        if (commentaire == null) {
+            commentaire = withDriver(() -> fetchCommentaire(externalId));
+        }
+        if (commentaire == null) {
+            return null;
+        }
+
+        String lu = commentaire;
+        cached.ifPresent(commande -> {
+            storeCommentaire(commande, lu, commande.getListFingerprint());
+            fencedWrite(() -> commandeRepository.save(commande));
+        });
+        return commentaire.isEmpty() ? null : commentaire;
+    }
+
+    private String fetchCommentaire(Long externalId) {
         if (!ensureLoggedIn()) {
             System.err.println("[MeditLink] Erreur de connexion pour récupération commentaire");
             return null;
         }
+        return fetchCommentaireWithRetry(externalId, newRateLimiter());
+    }
 
-        try {
-            // Navigation vers la page de détail
-            String detailUrl = BASE_URL + "/inbox/detail/" + externalId;
-            driver.navigate().to(detailUrl);
+    /**
+     * Lit une page de détail en respectant le débit du limiteur. Une page en
+     * erreur est réessayée après une pause croissante ; seul un navigateur mort
+     * est recréé, la session des autres pages n'est pas touchée.
+     */
+    private String fetchCommentaireWithRetry(Long externalId, AdaptiveRateLimiter limiter) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                limiter.acquire();
+                long start = System.nanoTime();
+                String commentaire = readCommentaire(externalId);
+                limiter.onSuccess(Duration.ofNanos(System.nanoTime() - start));
+                return commentaire;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                limiter.onFailure();
+                if (attempt >= commentMaxAttempts) {
+                    System.err.println("[MeditLink] Erreur récupération commentaire pour ID " + externalId
+                            + " après " + attempt + " tentatives: " + e.getMessage());
+                    return null;
+                }
+                System.err.println("[MeditLink] Tentative " + attempt + " échouée pour ID " + externalId
+                        + ", nouvel essai: " + e.getMessage());
+                if (!isDriverAlive()) {
+                    initializeDriver();
+                    if (!ensureLoggedIn()) {
+                        return null;
+                    }
+                }
+                try {
+                    Thread.sleep(limiter.backoff(attempt).toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+    }
 
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(20));
+    private String readCommentaire(Long externalId) {
+        // Navigation vers la page de détail
+        String detailUrl = baseUrl() + "/inbox/detail/" + externalId;
+        loadPage(detailUrl);
 
-            // Attendre le chargement de la page
-            wait.until(ExpectedConditions.urlContains("/inbox/detail/"));
+        WebDriverWait wait = pageWait("commentaire", Duration.ofSeconds(20));
 
-            // Rechercher le textarea avec les attributs spécifiés
-            WebElement commentaireTextarea = wait.until(ExpectedConditions.presenceOfElementLocated(
-                    By.cssSelector("textarea[data-v-8a2006a2][data-v-2adbe6cd-s].show-scrollbar[disabled]")));
+        // Attendre le chargement de la page
+        wait.until(ExpectedConditions.urlContains("/inbox/detail/"));
 
-            // Récupérer le texte du commentaire
-            String commentaire = commentaireTextarea.getAttribute("value");
-            if (commentaire == null || commentaire.trim().isEmpty()) {
-                commentaire = commentaireTextarea.getText();
-            }
+        // Rechercher le textarea avec les attributs spécifiés
+        WebElement commentaireTextarea = wait.until(ExpectedConditions.presenceOfElementLocated(
+                By.cssSelector("textarea[data-v-8a2006a2][data-v-2adbe6cd-s].show-scrollbar[disabled]")));
+        recordPage();
 
-            System.out.println("[MeditLink] Commentaire récupéré pour ID " + externalId + ": " +
-                    (commentaire.isEmpty() ? "Aucun commentaire" : "Commentaire présent"));
+        // Récupérer le texte du commentaire
+        String commentaire = commentaireTextarea.getDomProperty("value");
+        if (commentaire == null || commentaire.trim().isEmpty()) {
+            commentaire = commentaireTextarea.getText();
+        }
 
-            return commentaire.trim().isEmpty() ? null : commentaire.trim();
+        System.out.println("[MeditLink] Commentaire récupéré pour ID " + externalId + ": " +
+                (commentaire.isEmpty() ? "Aucun commentaire" : "Commentaire présent"));
 
-        } catch (Exception e) {
-            System.err.println(
-                    "[MeditLink] Erreur récupération commentaire pour ID " + externalId + ": " + e.getMessage());
-            handleError(e);
-            return null;
+        return commentaire.trim();
+    }
+
+    /**
+     * Lit les pages de détail avec plusieurs navigateurs du pool en parallèle,
+     * au débit commun d'un limiteur adaptatif. Les pages en échec sont absentes
+     * du résultat ; un commentaire vide vaut "".
+     */
+    private Map<Long, String> fetchCommentairesConcurrently(List<Long> externalIds) {
+        Map<Long, String> commentaires = new ConcurrentHashMap<>();
+        if (externalIds.isEmpty()) {
+            return commentaires;
+        }
+
+        Queue<Long> pending = new ConcurrentLinkedQueue<>(externalIds);
+        AdaptiveRateLimiter limiter = newRateLimiter();
+        int workers = Math.min(Math.min(commentConcurrency, getPool().getMaxSize()), externalIds.size());
+
+        // Les lecteurs travaillent pour le même compte que le thread appelant
+        Tenant tenant = tenant();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < workers; i++) {
+                executor.submit(() -> {
+                    try {
+                        runAs(tenant, () -> withDriver(() -> {
+                            if (!ensureLoggedIn()) {
+                                System.err.println("[MeditLink] Erreur de connexion pour récupération commentaire");
+                                return null;
+                            }
+                            Long externalId;
+                            while ((externalId = pending.poll()) != null) {
+                                String commentaire = fetchCommentaireWithRetry(externalId, limiter);
+                                if (commentaire != null) {
+                                    commentaires.put(externalId, commentaire);
+                                }
+                            }
+                            return null;
+                        }));
+                    } catch (Exception e) {
+                        System.err.println("[MeditLink] Erreur d'un lecteur de commentaires: " + e.getMessage());
+                    }
+                });
+            }
         }
+
+        if (!pending.isEmpty()) {
+            System.err.println("[MeditLink] " + pending.size() + " commentaires non lus (aucun navigateur disponible)");
+        }
+        System.out.println("[MeditLink] " + commentaires.size() + " commentaires récupérés sur "
+                + externalIds.size() + " commandes (" + workers + " navigateurs, débit final "
+                + String.format("%.1f", limiter.getRate()) + " req/s)");
+        return commentaires;
+    }
+
+    private AdaptiveRateLimiter newRateLimiter() {
+        return new AdaptiveRateLimiter(commentInitialRate, commentMinRate, commentMaxRate, commentSlowThreshold);
     }
 
     /**
-     * Récupère tous les commentaires pour toutes les commandes
+     * Récupère tous les commentaires pour toutes les commandes. Les commentaires
+     * sont conservés sur les commandes : seules les pages de détail des
+     * nouvelles commandes, des lignes modifiées dans la liste (empreinte
+     * différente) ou des commentaires plus vieux que meditlink.comments.ttl sont
+     * relues. Pendant meditlink.comments.list-refresh après une vérification, la
+     * réponse vient directement de la base, de même quand le compte est en
+     * cours de synchronisation sur un autre nœud ou que son disjoncteur est
+     * ouvert.
      * 
      * @return Map avec externalId comme clé et commentaire comme valeur
      */
-    public java.util.Map<Long, String> getAllCommentaires() {
-        java.util.Map<Long, String> commentaires = new java.util.HashMap<>();
-
-        if (!ensureLoggedIn()) {
-            System.err.println("[MeditLink] Erreur de connexion pour récupération de tous les commentaires");
-            return commentaires;
+    public Map<Long, String> getAllCommentaires(Tenant tenant) {
+        Instant checkedAt = lastCommentListChecks.get(tenant.key());
+        if (checkedAt != null && checkedAt.plus(commentListRefresh).isAfter(Instant.now())) {
+            return cachedCommentaires(tenant);
         }
 
         try {
-            // Récupérer d'abord toutes les commandes pour avoir les IDs
-            driver.navigate().to(BASE_URL + "/inbox");
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(40));
+            runExclusive(tenant, () -> {
+                List<Map<String, String>> rows = fetchInboxRows();
+                // Liste indisponible : on sert ce qui est déjà en base
+                if (!rows.isEmpty()) {
+                    refreshCommentaires(tenant, rows, true);
+                    lastCommentListChecks.put(tenant.key(), Instant.now());
+                }
+                return null;
+            });
+        } catch (LeaseUnavailableException | PlatformUnavailableException e) {
+            System.out.println("[MeditLink] " + e.getMessage() + ", commentaires servis depuis la base");
+        }
+        return cachedCommentaires(tenant);
+    }
 
-            // Attente du chargement du tableau
-            By tableRowLocator = By.cssSelector("tr.main-body-tr");
-            wait.until(ExpectedConditions.presenceOfElementLocated(tableRowLocator));
+    /**
+     * Lignes de l'inbox, par l'API si le mode HTTP est actif, sinon par Chrome.
+     */
+    private List<Map<String, String>> fetchInboxRows() {
+        String listUrl = httpProperty("list-url");
+        if (isHttpModeEnabled() && listUrl != null && httpProperty("detail-url") != null) {
+            Optional<List<Map<String, String>>> rows = httpRows(listUrl);
+            if (rows.isPresent()) {
+                return rows.get();
+            }
+        }
+        return withDriver(this::readInboxRows);
+    }
 
-            List<WebElement> rows = driver.findElements(tableRowLocator);
-            List<Long> externalIds = new ArrayList<>();
+    /**
+     * Relit les commentaires d'un lot de lignes de l'inbox pour le compte
+     * tenant (tâche COMMENT_FETCH). Les commentaires encore frais sont ignorés :
+     * une tâche rejouée après un échec ne relit que ce qui manque.
+     *
+     * @throws LeaseUnavailableException si le compte est synchronisé par un autre nœud
+     */
+    public void fetchCommentaires(Tenant tenant, List<Map<String, String>> rows) {
+        runExclusive(tenant, () -> {
+            refreshCommentaires(tenant, rows, false);
+            return null;
+        });
+    }
 
-            // Extraire tous les IDs externes
-            for (WebElement row : rows) {
-                try {
-                    String externalIdStr = row.findElement(By.cssSelector("td:nth-child(7) span")).getText().trim();
-                    if (!externalIdStr.isEmpty()) {
-                        externalIds.add(Long.parseLong(externalIdStr));
-                    }
-                } catch (Exception e) {
-                    System.err.println("[MeditLink] Erreur extraction ID: " + e.getMessage());
-                }
+    /**
+     * Compare les lignes de l'inbox aux commentaires en base et relit ceux qui
+     * ont changé. Avec la file de tâches et queueStale, la lecture est confiée
+     * aux workers par lots de meditlink.comments.job-batch lignes.
+     */
+    private void refreshCommentaires(Tenant tenant, List<Map<String, String>> rows, boolean queueStale) {
+        Map<Long, Map<String, String>> rowsById = new LinkedHashMap<>();
+        for (Map<String, String> row : rows) {
+            try {
+                rowsById.put(Long.parseLong(row.get("externalId")), row);
+            } catch (Exception e) {
+                System.err.println("[MeditLink] Erreur extraction ID: " + e.getMessage());
             }
+        }
 
-            System.out.println("[MeditLink] Récupération des commentaires pour " + externalIds.size() + " commandes");
+        Map<Long, Commande> known = new HashMap<>();
+        for (Commande commande : commandeRepository.findByPlateformeAndOwnerIdAndExternalIdIn(Plateforme.MEDITLINK, tenant.ownerId(),
+                rowsById.keySet())) {
+            known.put(commande.getExternalId(), commande);
+        }
 
-            // Récupérer le commentaire pour chaque ID
-            for (Long externalId : externalIds) {
-                String commentaire = getCommentaire(externalId);
-                if (commentaire != null && !commentaire.isEmpty()) {
-                    commentaires.put(externalId, commentaire);
-                }
+        List<Long> stale = new ArrayList<>();
+        rowsById.forEach((externalId, row) -> {
+            Commande commande = known.get(externalId);
+            if (commande == null || !isCommentaireFresh(commande)
+                    || !fingerprint(row).equals(commande.getListFingerprint())) {
+                stale.add(externalId);
+            }
+        });
+        System.out.println("[MeditLink] " + stale.size() + " commentaires à relire sur " + rowsById.size()
+                + " commandes (" + (rowsById.size() - stale.size()) + " servis par la base)");
+        if (stale.isEmpty()) {
+            return;
+        }
+        if (queueStale && jobQueue.isEnabled()) {
+            enqueueCommentaires(tenant, stale.stream().map(rowsById::get).toList());
+            return;
+        }
 
-                // Petite pause entre les requêtes pour éviter la surcharge
-                Thread.sleep(1000);
+        Map<Long, String> fetched = detailApiUrl(stale.get(0)) != null
+                ? fetchCommentairesOverHttp(stale)
+                : fetchCommentairesConcurrently(stale);
+
+        List<Commande> updated = new ArrayList<>();
+        fetched.forEach((externalId, commentaire) -> {
+            Map<String, String> row = rowsById.get(externalId);
+            Commande commande = known.get(externalId);
+            if (commande == null) {
+                commande = toCommande(row);
+            }
+            if (commande != null) {
+                storeCommentaire(commande, commentaire, fingerprint(row));
+                updated.add(commande);
             }
+        });
+        if (!updated.isEmpty()) {
+            fencedWrite(() -> commandeStore.upsert(updated));
+        }
+    }
 
-            System.out.println("[MeditLink] " + commentaires.size() + " commentaires récupérés sur "
-                    + externalIds.size() + " commandes");
+    private void enqueueCommentaires(Tenant tenant, List<Map<String, String>> staleRows) {
+        int batch = Math.max(1, commentJobBatch);
+        int jobs = 0;
+        for (int i = 0; i < staleRows.size(); i += batch) {
+            List<Map<String, String>> chunk = staleRows.subList(i, Math.min(i + batch, staleRows.size()));
+            try {
+                jobQueue.enqueue(ScrapeJobType.COMMENT_FETCH, tenant, objectMapper.writeValueAsString(chunk));
+                jobs++;
+            } catch (Exception e) {
+                System.err.println("[MeditLink] Mise en file des commentaires impossible: " + e.getMessage());
+            }
+        }
+        System.out.println("[MeditLink] " + staleRows.size() + " commentaires confiés à " + jobs + " tâches");
+    }
+
+    private Map<Long, String> cachedCommentaires(Tenant tenant) {
+        Map<Long, String> commentaires = new HashMap<>();
+        for (Commande commande : commandeRepository.findByPlateformeAndOwnerIdAndCommentaireIsNotNull(Plateforme.MEDITLINK,
+                tenant.ownerId())) {
+            commentaires.put(commande.getExternalId(), commande.getCommentaire());
+        }
+        return commentaires;
+    }
+
+    private boolean isCommentaireFresh(Commande commande) {
+        LocalDateTime fetchedAt = commande.getCommentaireFetchedAt();
+        return fetchedAt != null && fetchedAt.plus(commentTtl).isAfter(LocalDateTime.now());
+    }
+
+    private void storeCommentaire(Commande commande, String commentaire, String listFingerprint) {
+        commande.setCommentaire(commentaire.isEmpty() ? null : commentaire);
+        commande.setCommentaireFetchedAt(LocalDateTime.now());
+        commande.setListFingerprint(listFingerprint);
+    }
+
+    /**
+     * Récupère les commentaires en parallèle sur l'API ; les pages de détail
+     * refusées (session expirée) sont relues avec le navigateur.
+     */
+    private Map<Long, String> fetchCommentairesOverHttp(List<Long> externalIds) {
+        Map<Long, String> commentaires = new HashMap<>();
+        Map<String, Long> idsByUrl = new LinkedHashMap<>();
+        for (Long externalId : externalIds) {
+            idsByUrl.put(detailApiUrl(externalId), externalId);
+        }
+
+        List<Long> missing = new ArrayList<>();
+        httpGetAll(idsByUrl.keySet()).forEach((url, body) -> {
+            Long externalId = idsByUrl.get(url);
+            String commentaire = body.map(this::parseCommentaire).orElse(null);
+            if (commentaire == null) {
+                missing.add(externalId);
+            } else {
+                commentaires.put(externalId, commentaire);
+            }
+        });
+
+        if (!missing.isEmpty()) {
+            System.out.println("[MeditLink] " + missing.size() + " détails relus avec le navigateur");
+            commentaires.putAll(fetchCommentairesConcurrently(missing));
+        }
+
+        System.out.println("[MeditLink] " + commentaires.size() + " commentaires récupérés par HTTP sur "
+                + externalIds.size() + " commandes");
+        return commentaires;
+    }
+
+    /**
+     * URL de l'API de détail (selenium.http.meditlink.detail-url), null si le
+     * mode HTTP est désactivé.
+     */
+    private String detailApiUrl(Long externalId) {
+        String template = httpProperty("detail-url");
+        if (!isHttpModeEnabled() || template == null) {
+            return null;
+        }
+        return template.replace("{id}", String.valueOf(externalId));
+    }
+
+    /**
+     * Commentaire lu dans la réponse de l'API de détail ("" si vide), null si la
+     * réponse est illisible.
+     */
+    private String parseCommentaire(String body) {
+        try {
+            String path = httpProperty("comment-path");
+            JsonNode node = objectMapper.readTree(body).at("/" + (path != null ? path : "comment").replace('.', '/'));
+            return node.isMissingNode() || node.isNull() ? "" : node.asText().trim();
+        } catch (Exception e) {
+            System.err.println("[MeditLink] Erreur lecture commentaire HTTP: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Map<String, String>> readInboxRows() {
+        if (!ensureLoggedIn()) {
+            System.err.println("[MeditLink] Erreur de connexion pour récupération de tous les commentaires");
+            return List.of();
+        }
+
+        try {
+            // Récupérer d'abord toutes les commandes pour avoir les IDs
+            loadPage(baseUrl() + "/inbox");
+            // Attente du rendu complet du tableau
+            awaitStable("liste", schema().getContainerSelector(), schema().getRowSelector(), Duration.ofSeconds(40));
+
+            List<Map<String, String>> rows = extractRows(schema().getRowSelector(), schema().getCells());
+            System.out.println("[MeditLink] " + rows.size() + " commandes dans l'inbox");
+            return rows;
 
         } catch (Exception e) {
             System.err.println("[MeditLink] Erreur récupération tous commentaires: " + e.getMessage());
             handleError(e);
+            return List.of();
         }
-
-        return commentaires;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package com.onescan.app.services;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Écoute le domaine Network du Chrome DevTools Protocol et récupère le corps
+ * des réponses dont l'URL correspond au motif. Les commandes CDP sont envoyées
+ * sous forme brute pour ne pas dépendre d'une version précise de Chrome.
+ */
+public class NetworkCapture implements AutoCloseable {
+
+    private final DevTools devTools;
+    private final Pattern urlPattern;
+    private final Map<String, String> matchedRequests = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> finishedRequests = new LinkedBlockingQueue<>();
+
+    public NetworkCapture(WebDriver driver, Pattern urlPattern) {
+        this.devTools = ((HasDevTools) driver).getDevTools();
+        this.urlPattern = urlPattern;
+
+        devTools.createSessionIfThereIsNotOne();
+        devTools.send(new Command<Void>("Network.enable", Map.of()));
+        devTools.addListener(event("Network.responseReceived"), this::onResponseReceived);
+        devTools.addListener(event("Network.loadingFinished"), this::onLoadingFinished);
+    }
+
+    public static boolean isSupported(WebDriver driver) {
+        return driver instanceof HasDevTools;
+    }
+
+    /**
+     * Attend la première réponse correspondante, puis les suivantes tant qu'elles
+     * arrivent à moins de quietPeriod d'intervalle (pages multiples).
+     */
+    public List<String> awaitBodies(Duration timeout, Duration quietPeriod) throws InterruptedException {
+        List<String> bodies = new ArrayList<>();
+        String requestId = finishedRequests.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        while (requestId != null) {
+            String body = readBody(requestId);
+            if (body != null) {
+                bodies.add(body);
+            }
+            requestId = finishedRequests.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return bodies;
+    }
+
+    private String readBody(String requestId) {
+        try {
+            Map<String, Object> result = devTools.send(new Command<Map<String, Object>>(
+                    "Network.getResponseBody", Map.of("requestId", requestId), Map.class));
+            String body = (String) result.get("body");
+            if (body != null && Boolean.TRUE.equals(result.get("base64Encoded"))) {
+                body = new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8);
+            }
+            return body;
+        } catch (Exception e) {
+            System.err.println("[Capture] Corps indisponible pour " + matchedRequests.get(requestId) + ": "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    private void onResponseReceived(Map<String, Object> event) {
+        if (event.get("response") instanceof Map<?, ?> response
+                && response.get("url") instanceof String url
+                && urlPattern.matcher(url).find()) {
+            matchedRequests.put(String.valueOf(event.get("requestId")), url);
+        }
+    }
+
+    private void onLoadingFinished(Map<String, Object> event) {
+        String requestId = String.valueOf(event.get("requestId"));
+        if (matchedRequests.containsKey(requestId)) {
+            finishedRequests.add(requestId);
+        }
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Map.class));
+    }
+
+    @Override
+    public void close() {
+        try {
+            devTools.clearListeners();
+            devTools.send(new Command<Void>("Network.disable", Map.of()));
+        } catch (Exception e) {
+            System.err.println("[Capture] Erreur lors de l'arrêt de la capture: " + e.getMessage());
+        }
+    }
+}
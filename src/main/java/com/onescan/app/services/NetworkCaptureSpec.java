@@ -0,0 +1,73 @@
+package com.onescan.app.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Décrit où trouver les commandes dans les réponses JSON d'une plateforme :
+ * motif d'URL de l'appel XHR, chemin du tableau d'éléments et chemin JSON de
+ * chaque cellule. Les cellules produites ont les mêmes noms que celles lues
+ * dans le DOM et passent par le même parsing.
+ */
+public record NetworkCaptureSpec(
+        Pattern urlPattern,
+        String itemsPath,
+        Map<String, String> fieldPaths,
+        Map<String, DateTimeFormatter> dateFields) {
+
+    public List<Map<String, String>> toRows(JsonNode payload) {
+        JsonNode items = itemsPath == null || itemsPath.isBlank() ? payload : payload.at(pointer(itemsPath));
+        List<Map<String, String>> rows = new ArrayList<>();
+        if (!items.isArray()) {
+            return rows;
+        }
+
+        for (JsonNode item : items) {
+            Map<String, String> cells = new LinkedHashMap<>();
+            fieldPaths.forEach((field, path) -> {
+                JsonNode node = item.at(pointer(path));
+                String value = node.isMissingNode() || node.isNull() ? null : node.asText().trim();
+                DateTimeFormatter formatter = dateFields.get(field);
+                cells.put(field, formatter != null ? reformatDate(value, formatter) : value);
+            });
+            rows.add(cells);
+        }
+        return rows;
+    }
+
+    /**
+     * Les API renvoient des dates ISO-8601 ; on les remet au format affiché dans
+     * le tableau pour réutiliser le parsing existant.
+     */
+    private static String reformatDate(String value, DateTimeFormatter formatter) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        try {
+            return OffsetDateTime.parse(value).toLocalDateTime().format(formatter);
+        } catch (Exception ignored) {
+        }
+        try {
+            return LocalDateTime.parse(value).format(formatter);
+        } catch (Exception ignored) {
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay().format(formatter);
+        } catch (Exception ignored) {
+        }
+        return value;
+    }
+
+    static String pointer(String path) {
+        return "/" + path.replace('.', '/');
+    }
+}
@@ -0,0 +1,28 @@
+package com.onescan.app.services;
+
+import java.time.Duration;
+
+/**
+ * Parcours d'une liste paginée ({@code selenium.pagination.<plateforme>.*}).
+ *
+ * @param mode            NONE (une seule page), NEXT_BUTTON (clic sur
+ *                        nextSelector) ou SCROLL (défilement infini)
+ * @param nextSelector    bouton « page suivante » actif, pour NEXT_BUTTON
+ * @param scrollContainer élément qui défile, null pour la fenêtre
+ * @param maxPages        nombre maximal de pages ou de défilements lus
+ * @param settleTimeout   attente du rendu de la page suivante ; au-delà, la
+ *                        liste est considérée comme terminée
+ */
+public record Pagination(
+        Mode mode,
+        String nextSelector,
+        String scrollContainer,
+        int maxPages,
+        Duration settleTimeout) {
+
+    public enum Mode {
+        NONE,
+        NEXT_BUTTON,
+        SCROLL
+    }
+}
@@ -0,0 +1,260 @@
+package com.onescan.app.services;
+
+import com.onescan.app.DTO.BrowserStats;
+import com.onescan.app.DTO.CircuitStats;
+import com.onescan.app.DTO.PageLoadStats;
+import com.onescan.app.DTO.PlatformSyncResult;
+import com.onescan.app.DTO.WaitStats;
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.Entity.ScrapeJobType;
+import com.onescan.app.repository.CommandeRepository;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Synchronise toutes les plateformes en parallèle : chaque
+ * {@link DentalPlatformService} tourne sur son propre thread virtuel, la durée
+ * totale est celle de la plateforme la plus lente.
+ * <p>
+ * Chaque compte ({@link Tenant}) est synchronisé indépendamment : un seul scrape
+ * à la fois par compte, et sa propre date de dernière synchronisation.
+ */
+@Service
+public class PlatformSyncService {
+
+    private final List<DentalPlatformService> platformServices;
+    private final CommandeRepository commandeRepository;
+    private final TenantDirectory tenantDirectory;
+    private final ScrapeJobQueue jobQueue;
+    private final ScrapeMetrics scrapeMetrics;
+    private final SyncWatermarkService syncWatermarkService;
+    private final Environment environment;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Comptes en cours de synchronisation sur ce nœud (par Tenant.key())
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${sync.timeout.default:PT2M}")
+    private Duration defaultTimeout;
+
+    public PlatformSyncService(List<DentalPlatformService> platformServices,
+            CommandeRepository commandeRepository, TenantDirectory tenantDirectory, ScrapeJobQueue jobQueue,
+            ScrapeMetrics scrapeMetrics, SyncWatermarkService syncWatermarkService, Environment environment) {
+        this.platformServices = platformServices;
+        this.commandeRepository = commandeRepository;
+        this.tenantDirectory = tenantDirectory;
+        this.jobQueue = jobQueue;
+        this.scrapeMetrics = scrapeMetrics;
+        this.syncWatermarkService = syncWatermarkService;
+        this.environment = environment;
+    }
+
+    /**
+     * Lance fetchCommandes() sur toutes les plateformes à la fois, avec le compte
+     * du .env. Une plateforme qui dépasse son délai est rapportée en TIMEOUT ; son
+     * scrape continue en arrière-plan et sauvegarde ses commandes à la fin.
+     */
+    public List<PlatformSyncResult> syncAll() {
+        List<CompletableFuture<PlatformSyncResult>> futures = new ArrayList<>();
+        for (DentalPlatformService service : platformServices) {
+            futures.add(sync(service, tenantDirectory.envTenant(service.getPlateforme())));
+        }
+
+        List<PlatformSyncResult> results = new ArrayList<>();
+        for (CompletableFuture<PlatformSyncResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Lance la synchronisation d'une seule plateforme, sans attendre sa fin. Si
+     * elle est déjà en cours, le résultat est immédiatement EN_COURS.
+     */
+    public CompletableFuture<PlatformSyncResult> refresh(Plateforme plateforme) {
+        return refresh(tenantDirectory.envTenant(plateforme));
+    }
+
+    /**
+     * Demande la synchronisation d'un compte, sans attendre sa fin. Avec la file
+     * de tâches (scrape.jobs.enabled), elle est confiée au premier nœud libre et
+     * le résultat est immédiatement EN_FILE ; sinon elle tourne sur ce nœud.
+     */
+    public CompletableFuture<PlatformSyncResult> refresh(Tenant tenant) {
+        if (jobQueue.isEnabled()) {
+            jobQueue.enqueue(ScrapeJobType.LIST_SYNC, tenant, null);
+            return CompletableFuture.completedFuture(PlatformSyncResult.queued(tenant.plateforme()));
+        }
+        return syncNow(tenant);
+    }
+
+    /**
+     * Lance la synchronisation d'un compte sur ce nœud, sans attendre sa fin.
+     * Si elle est déjà en cours, le résultat est immédiatement EN_COURS.
+     */
+    public CompletableFuture<PlatformSyncResult> syncNow(Tenant tenant) {
+        return platformServices.stream()
+                .filter(service -> service.getPlateforme() == tenant.plateforme())
+                .findFirst()
+                .map(service -> sync(service, tenant))
+                .orElseThrow(() -> new IllegalArgumentException("Plateforme inconnue: " + tenant.plateforme()));
+    }
+
+    public List<Plateforme> getPlateformes() {
+        return platformServices.stream().map(DentalPlatformService::getPlateforme).toList();
+    }
+
+    /**
+     * Comptes à synchroniser sur les plateformes supportées.
+     */
+    public List<Tenant> getTenants() {
+        return tenantDirectory.getTenants(getPlateformes());
+    }
+
+    public Optional<Tenant> findTenant(Long platformId, String userEmail) {
+        return tenantDirectory.find(platformId, userEmail);
+    }
+
+    /**
+     * Compte de l'utilisateur connecté sur la plateforme, vide s'il n'en a pas
+     * enregistré.
+     */
+    public Optional<Tenant> tenantFor(Plateforme plateforme, String userEmail) {
+        return tenantDirectory.tenantFor(plateforme, userEmail);
+    }
+
+    /**
+     * Commandes déjà synchronisées d'un compte, lues en base sans ouvrir de
+     * navigateur.
+     */
+    public List<Commande> getStoredCommandes(Tenant tenant) {
+        return commandeRepository.findByPlateformeAndOwnerId(tenant.plateforme(), tenant.ownerId());
+    }
+
+    /**
+     * Fin de la dernière synchronisation réussie du compte, enregistrée avec son
+     * watermark : elle survit aux redémarrages et vaut pour tous les nœuds.
+     */
+    public Optional<Instant> getLastSyncedAt(Tenant tenant) {
+        return syncWatermarkService.lastSuccess(tenant);
+    }
+
+    /**
+     * Temps passé dans les attentes explicites, par plateforme.
+     */
+    public List<WaitStats> getWaitStats() {
+        return platformServices.stream()
+                .filter(BaseSeleniumService.class::isInstance)
+                .map(service -> ((BaseSeleniumService) service).getWaitStats())
+                .toList();
+    }
+
+    public List<PageLoadStats> getPageLoadStats() {
+        return platformServices.stream()
+                .filter(BaseSeleniumService.class::isInstance)
+                .map(service -> ((BaseSeleniumService) service).getPageLoadStats())
+                .toList();
+    }
+
+    public List<BrowserStats> getBrowserStats() {
+        return platformServices.stream()
+                .filter(BaseSeleniumService.class::isInstance)
+                .map(service -> ((BaseSeleniumService) service).getBrowserStats())
+                .toList();
+    }
+
+    public List<CircuitStats> getCircuitStats() {
+        return platformServices.stream()
+                .filter(BaseSeleniumService.class::isInstance)
+                .flatMap(service -> ((BaseSeleniumService) service).getCircuitStats().stream())
+                .toList();
+    }
+
+    private CompletableFuture<PlatformSyncResult> sync(DentalPlatformService service, Tenant tenant) {
+        Plateforme plateforme = service.getPlateforme();
+        String key = tenant.key();
+        if (!inFlight.add(key)) {
+            System.out.println("[Sync] " + tenant + " : synchronisation déjà en cours");
+            return CompletableFuture.completedFuture(PlatformSyncResult.alreadyRunning(plateforme));
+        }
+        Duration timeout = timeoutFor(plateforme);
+        long start = System.nanoTime();
+
+        // Le scrape peut continuer après le délai : le compte reste occupé jusqu'à sa fin
+        CompletableFuture<List<Commande>> scrape = CompletableFuture
+                .supplyAsync(() -> service.fetchCommandes(tenant), executor)
+                .whenComplete((commandes, error) -> inFlight.remove(key));
+
+        return scrape.copy()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((commandes, error) -> toResult(plateforme, commandes, error, elapsedMs(start)));
+    }
+
+    private PlatformSyncResult toResult(Plateforme plateforme, List<Commande> commandes, Throwable error,
+            long dureeMs) {
+        PlatformSyncResult result = classify(plateforme, commandes, error, dureeMs);
+        scrapeMetrics.sync(plateforme, result.statut(), dureeMs);
+        return result;
+    }
+
+    private PlatformSyncResult classify(Plateforme plateforme, List<Commande> commandes, Throwable error,
+            long dureeMs) {
+        if (error == null) {
+            System.out.println("[Sync] " + plateforme + " : " + commandes.size() + " commandes en " + dureeMs + " ms");
+            return PlatformSyncResult.success(plateforme, commandes, dureeMs);
+        }
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            System.err.println("[Sync] " + plateforme + " : délai dépassé après " + dureeMs + " ms");
+            return PlatformSyncResult.timeout(plateforme, dureeMs);
+        }
+        if (cause instanceof LeaseUnavailableException) {
+            System.out.println("[Sync] " + plateforme + " : " + cause.getMessage());
+            return PlatformSyncResult.heldElsewhere(plateforme, cause.getMessage());
+        }
+        if (cause instanceof PlatformUnavailableException) {
+            System.err.println("[Sync] " + plateforme + " : " + cause.getMessage());
+            return PlatformSyncResult.unavailable(plateforme, cause.getMessage());
+        }
+
+        System.err.println("[Sync] " + plateforme + " : erreur " + cause.getMessage());
+        return PlatformSyncResult.failure(plateforme, dureeMs, cause.getMessage());
+    }
+
+    /**
+     * Délai propre à la plateforme (sync.timeout.threeshape, ...) ou délai par
+     * défaut.
+     */
+    private Duration timeoutFor(Plateforme plateforme) {
+        String key = "sync.timeout." + plateforme.name().toLowerCase();
+        return environment.getProperty(key, Duration.class, defaultTimeout);
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,12 @@
+package com.onescan.app.services;
+
+/**
+ * Le disjoncteur du compte est ouvert : l'appel est refusé sans solliciter la
+ * plateforme. Il pourra être retenté à la fermeture du disjoncteur.
+ */
+public class PlatformUnavailableException extends IllegalStateException {
+
+    public PlatformUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,121 @@
+package com.onescan.app.services;
+
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Emplacement du pool : un navigateur Chrome (créé à la demande) et l'état de
+ * sa session sur la plateforme.
+ */
+public class PooledDriver {
+
+    private final long generation;
+    private WebDriver driver;
+    private Instant createdAt;
+    private Instant lastUsedAt;
+    private volatile boolean loggedIn;
+    private boolean resourceBlocking;
+    private ProcessHandle process;
+    private BrowserContext context;
+    private int navigations;
+
+    PooledDriver(long generation) {
+        this.generation = generation;
+        this.lastUsedAt = Instant.now();
+    }
+
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    void attach(WebDriver driver, ProcessHandle process, BrowserContext context) {
+        this.driver = driver;
+        this.process = process;
+        this.context = context;
+        this.createdAt = Instant.now();
+        this.loggedIn = false;
+        this.navigations = 0;
+    }
+
+    WebDriver detach() {
+        WebDriver old = driver;
+        driver = null;
+        createdAt = null;
+        loggedIn = false;
+        resourceBlocking = false;
+        process = null;
+        navigations = 0;
+        return old;
+    }
+
+    /**
+     * Contexte du Chrome partagé dans lequel tourne le navigateur, null pour un
+     * Chrome dédié.
+     */
+    public BrowserContext getContext() {
+        return context;
+    }
+
+    BrowserContext detachContext() {
+        BrowserContext old = context;
+        context = null;
+        return old;
+    }
+
+    public boolean isLoggedIn() {
+        return loggedIn;
+    }
+
+    public void setLoggedIn(boolean loggedIn) {
+        this.loggedIn = loggedIn;
+    }
+
+    /**
+     * Vrai si le navigateur a été créé avec la liste de blocage des ressources.
+     */
+    public boolean isResourceBlocking() {
+        return resourceBlocking;
+    }
+
+    void setResourceBlocking(boolean resourceBlocking) {
+        this.resourceBlocking = resourceBlocking;
+    }
+
+    /**
+     * Processus chromedriver du navigateur (Chrome est son descendant), null si
+     * inconnu.
+     */
+    public ProcessHandle getProcess() {
+        return process;
+    }
+
+    public int getNavigations() {
+        return navigations;
+    }
+
+    void countNavigation() {
+        navigations++;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    void touch() {
+        lastUsedAt = Instant.now();
+    }
+
+    /**
+     * Vrai si le navigateur a dépassé sa durée de vie ou est resté inutilisé trop
+     * longtemps.
+     */
+    boolean isExpired(Duration maxLifetime, Duration maxIdle) {
+        Instant now = Instant.now();
+        if (createdAt != null && createdAt.plus(maxLifetime).isBefore(now)) {
+            return true;
+        }
+        return lastUsedAt.plus(maxIdle).isBefore(now);
+    }
+}
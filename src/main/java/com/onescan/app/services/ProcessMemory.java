@@ -0,0 +1,60 @@
+package com.onescan.app.services;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Lecture de la mémoire résidente (RSS) des processus via /proc. Sur les
+ * systèmes sans /proc les valeurs valent 0.
+ */
+public final class ProcessMemory {
+
+    private ProcessMemory() {
+    }
+
+    public static long rssBytes(ProcessHandle process) {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        try (Stream<String> lines = Files.lines(status)) {
+            return lines.filter(line -> line.startsWith("VmRSS:"))
+                    .findFirst()
+                    .map(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                    .orElse(0L);
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * RSS du processus et de tous ses descendants (chromedriver, Chrome et ses
+     * processus de rendu).
+     */
+    public static long treeRssBytes(ProcessHandle process) {
+        return rssBytes(process) + process.descendants().mapToLong(ProcessMemory::rssBytes).sum();
+    }
+
+    /**
+     * Tue le processus et ses descendants, enfants d'abord.
+     */
+    public static void killTree(ProcessHandle process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Processus chromedriver lancé par l'application sur port, reconnu à son
+     * argument --port ; null s'il est introuvable.
+     */
+    public static ProcessHandle chromedriverOnPort(int port) {
+        String portArgument = "--port=" + port;
+        return ProcessHandle.current().children()
+                .filter(process -> commandLine(process).contains(portArgument))
+                .findFirst()
+                .orElse(null);
+    }
+
+    public static String commandLine(ProcessHandle process) {
+        return process.info().commandLine().orElse("");
+    }
+}
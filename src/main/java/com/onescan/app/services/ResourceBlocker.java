@@ -0,0 +1,40 @@
+package com.onescan.app.services;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bloque des URL dans Chrome via Network.setBlockedURLs. Le blocage est lié au
+ * domaine Network : il doit être réappliqué après un Network.disable (fin d'une
+ * {@link NetworkCapture}).
+ */
+public final class ResourceBlocker {
+
+    private ResourceBlocker() {
+    }
+
+    /**
+     * Applique la liste de motifs au navigateur. Retourne false si le navigateur
+     * ne supporte pas DevTools ou si la commande a échoué.
+     */
+    public static boolean apply(WebDriver driver, List<String> urlPatterns) {
+        if (urlPatterns.isEmpty() || !(driver instanceof HasDevTools hasDevTools)) {
+            return false;
+        }
+        try {
+            DevTools devTools = hasDevTools.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(new Command<Void>("Network.enable", Map.of()));
+            devTools.send(new Command<Void>("Network.setBlockedURLs", Map.of("urls", urlPatterns)));
+            return true;
+        } catch (Exception e) {
+            System.err.println("[Blocage] Impossible d'appliquer la liste de blocage: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.onescan.app.services;
+
+import org.springframework.stereotype.Service;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.services.ScrapeMetrics.Phase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Sauvegarde des lignes lues sur une plateforme (DOM, capture réseau ou API)
+ * pour le compte en cours de synchronisation : conversion en commandes, filtre
+ * du watermark puis écriture groupée ({@link CommandeStore}) sous le jeton de
+ * fencing du compte.
+ */
+@Service
+public class RowPersister {
+
+    private final CommandeStore commandeStore;
+    private final SyncLeaseService syncLeases;
+    private final ScrapeMetrics scrapeMetrics;
+
+    public RowPersister(CommandeStore commandeStore, SyncLeaseService syncLeases, ScrapeMetrics scrapeMetrics) {
+        this.commandeStore = commandeStore;
+        this.syncLeases = syncLeases;
+        this.scrapeMetrics = scrapeMetrics;
+    }
+
+    /**
+     * Convertit les lignes en commandes et les sauvegarde en un lot : celles déjà
+     * en base sont mises à jour. Les lignes invalides sont ignorées ; un échec de
+     * sauvegarde n'interrompt pas le parcours mais fait échouer run. Lors d'une
+     * synchronisation incrémentale, les commandes antérieures au watermark ne
+     * sont pas réécrites.
+     *
+     * @param run synchronisation en cours, null hors synchronisation
+     * @return les commandes sauvegardées
+     * @throws LeaseUnavailableException si ce nœud a perdu le bail du compte
+     */
+    public List<Commande> persist(Tenant tenant, List<Map<String, String>> rows,
+            Function<Map<String, String>, Commande> toCommande, SyncRun run) {
+        Plateforme plateforme = tenant.plateforme();
+        List<Commande> commandes = new ArrayList<>();
+        int incomplete = 0;
+        int old = 0;
+        int invalid = 0;
+        int withoutKey = 0;
+        for (Map<String, String> row : rows) {
+            try {
+                Commande commande = toCommande.apply(row);
+                if (commande == null) {
+                    incomplete++;
+                } else if (commande.getExternalId() == null) {
+                    // Référence vide : aucune clé pour la retrouver à la synchronisation suivante
+                    withoutKey++;
+                } else if (run != null && run.isOld(commande)) {
+                    old++;
+                } else {
+                    commandes.add(commande);
+                }
+            } catch (Exception e) {
+                invalid++;
+                System.err.println("[" + plateforme + "] Ligne ignorée (erreur parsing): " + e.getMessage());
+            }
+        }
+        scrapeMetrics.rowsSkipped(plateforme, "incomplet", incomplete);
+        scrapeMetrics.rowsSkipped(plateforme, "watermark", old);
+        scrapeMetrics.rowsSkipped(plateforme, "erreur", invalid);
+        scrapeMetrics.rowsSkipped(plateforme, "sans_cle", withoutKey);
+
+        if (commandes.isEmpty()) {
+            return commandes;
+        }
+        try {
+            List<Commande> saved = scrapeMetrics.time(plateforme, Phase.PERSIST,
+                    () -> syncLeases.fenced(tenant.key(), () -> commandeStore.upsert(commandes)));
+            if (run != null) {
+                saved.forEach(run::observe);
+            }
+            return saved;
+        } catch (LeaseUnavailableException e) {
+            // Un autre nœud a repris le compte : la synchronisation s'arrête ici
+            throw e;
+        } catch (Exception e) {
+            System.err.println("[" + plateforme + "] Erreur sauvegarde de " + commandes.size()
+                    + " commandes: " + e.getMessage());
+            if (run != null) {
+                run.fail("sauvegarde: " + e.getMessage());
+            }
+            return List.of();
+        }
+    }
+
+    /**
+     * Comme {@link #persist}, pour une liste lue en entier en une fois (API en
+     * mode HTTP, capture réseau) : run est marquée comme lue jusqu'au bout, son
+     * watermark peut avancer si la sauvegarde a réussi.
+     */
+    public List<Commande> persistAll(Tenant tenant, List<Map<String, String>> rows,
+            Function<Map<String, String>, Commande> toCommande, SyncRun run) {
+        List<Commande> saved = persist(tenant, rows, toCommande, run);
+        if (run != null) {
+            run.reachEnd();
+        }
+        return saved;
+    }
+}
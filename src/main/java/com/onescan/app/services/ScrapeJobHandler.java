@@ -0,0 +1,16 @@
+package com.onescan.app.services;
+
+import com.onescan.app.Entity.ScrapeJob;
+import com.onescan.app.Entity.ScrapeJobType;
+
+/**
+ * Traitement d'un type de tâche de la file {@link ScrapeJobQueue}. Une
+ * exception fait échouer l'essai : la tâche sera rejouée, le traitement doit
+ * donc être idempotent.
+ */
+public interface ScrapeJobHandler {
+
+    ScrapeJobType getType();
+
+    void handle(ScrapeJob job, Tenant tenant) throws Exception;
+}
@@ -0,0 +1,247 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.onescan.app.Entity.ScrapeJob;
+import com.onescan.app.Entity.ScrapeJobStatus;
+import com.onescan.app.Entity.ScrapeJobType;
+import com.onescan.app.repository.ScrapeJobRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * File de tâches de scraping partagée par tous les nœuds, stockée dans
+ * scrape_jobs. Un worker réserve des tâches (SELECT ... FOR UPDATE SKIP
+ * LOCKED) pour scrape.jobs.lease, prolonge ce bail par des heartbeats, puis
+ * les marque terminées ou en échec. Une tâche en échec est reprogrammée avec
+ * un délai doublé à chaque essai, puis abandonnée (DEAD) après
+ * scrape.jobs.max-attempts essais.
+ */
+@Service
+public class ScrapeJobQueue {
+
+    private static final List<ScrapeJobStatus> ACTIVE = List.of(ScrapeJobStatus.PENDING, ScrapeJobStatus.RUNNING);
+
+    private final ScrapeJobRepository jobRepository;
+    private final String nodeId;
+
+    @Value("${scrape.jobs.enabled:false}")
+    private boolean enabled;
+
+    @Value("${scrape.jobs.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${scrape.jobs.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${scrape.jobs.retry-backoff:PT30S}")
+    private Duration retryBackoff;
+
+    public ScrapeJobQueue(ScrapeJobRepository jobRepository, ClusterNode clusterNode) {
+        this.jobRepository = jobRepository;
+        this.nodeId = clusterNode.getId();
+    }
+
+    /**
+     * Vrai si les synchronisations passent par la file plutôt que de tourner
+     * sur le nœud qui les reçoit.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Duration getLease() {
+        return lease;
+    }
+
+    /**
+     * Ajoute une tâche pour le compte tenant. Une synchronisation de liste déjà
+     * en attente ou en cours pour ce compte n'est pas dupliquée, même si deux
+     * nœuds la demandent en même temps : sa clé active (active_key) est unique.
+     *
+     * @return la tâche créée, vide si elle existait déjà
+     */
+    public Optional<ScrapeJob> enqueue(ScrapeJobType type, Tenant tenant, String payload) {
+        String activeKey = type == ScrapeJobType.LIST_SYNC ? type + ":" + tenant.key() : null;
+        // Raccourci du cas courant ; la contrainte d'unicité tranche les demandes simultanées
+        if (activeKey != null && jobRepository.existsByTypeAndTenantKeyAndStatusIn(type, tenant.key(), ACTIVE)) {
+            return Optional.empty();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        ScrapeJob job = new ScrapeJob();
+        job.setType(type);
+        job.setStatus(ScrapeJobStatus.PENDING);
+        job.setPlateforme(tenant.plateforme());
+        job.setPlatformId(tenant.platformId());
+        job.setTenantKey(tenant.key());
+        job.setActiveKey(activeKey);
+        job.setPayload(payload);
+        job.setMaxAttempts(Math.max(1, maxAttempts));
+        job.setAvailableAt(now);
+        job.setCreatedAt(now);
+        try {
+            return Optional.of(jobRepository.saveAndFlush(job));
+        } catch (DataIntegrityViolationException e) {
+            if (activeKey == null) {
+                throw e;
+            }
+            System.out.println("[Jobs] " + activeKey + " déjà en file");
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Réserve jusqu'à max tâches pour ce nœud : d'abord celles dont le bail a
+     * expiré, puis les plus anciennes disponibles. Les lignes verrouillées par
+     * un autre nœud sont ignorées, sans attente.
+     */
+    @Transactional
+    public List<ScrapeJob> claim(int max) {
+        if (max <= 0) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<ScrapeJob> claimed = new ArrayList<>();
+
+        for (ScrapeJob job : jobRepository.findByStatusAndLeaseUntilBeforeOrderByLeaseUntilAsc(
+                ScrapeJobStatus.RUNNING, now, PageRequest.of(0, max))) {
+            System.err.println("[Jobs] Bail de la tâche " + job.getId() + " expiré (" + job.getLeaseOwner() + ")");
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                bury(job, "Bail expiré après " + job.getAttempts() + " essais", now);
+            } else {
+                claimed.add(lease(job, now));
+            }
+        }
+
+        int remaining = max - claimed.size();
+        if (remaining > 0) {
+            for (ScrapeJob job : jobRepository.findByStatusAndAvailableAtLessThanEqualOrderByAvailableAtAsc(
+                    ScrapeJobStatus.PENDING, now, PageRequest.of(0, remaining))) {
+                claimed.add(lease(job, now));
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Prolonge le bail d'une tâche. Retourne false si elle n'appartient plus à
+     * ce nœud (bail expiré puis repris ailleurs).
+     */
+    @Transactional
+    public boolean heartbeat(Long jobId) {
+        return ownedJob(jobId).map(job -> {
+            LocalDateTime now = LocalDateTime.now();
+            job.setHeartbeatAt(now);
+            job.setLeaseUntil(now.plus(lease));
+            return true;
+        }).orElse(false);
+    }
+
+    @Transactional
+    public void complete(Long jobId) {
+        ownedJob(jobId).ifPresent(job -> {
+            job.setStatus(ScrapeJobStatus.DONE);
+            job.setActiveKey(null);
+            job.setLeaseOwner(null);
+            job.setLeaseUntil(null);
+            job.setFinishedAt(LocalDateTime.now());
+        });
+    }
+
+    /**
+     * Enregistre l'échec d'une tâche : nouvel essai après retry-backoff x
+     * 2^(essais - 1), ou abandon au dernier essai.
+     */
+    @Transactional
+    public void fail(Long jobId, String error) {
+        ownedJob(jobId).ifPresent(job -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (job.getAttempts() >= job.getMaxAttempts()) {
+                bury(job, error, now);
+                return;
+            }
+            Duration delay = retryBackoff.multipliedBy(1L << Math.min(job.getAttempts() - 1, 10));
+            job.setStatus(ScrapeJobStatus.PENDING);
+            job.setLastError(truncate(error));
+            job.setLeaseOwner(null);
+            job.setLeaseUntil(null);
+            job.setAvailableAt(now.plus(delay));
+            System.err.println("[Jobs] Tâche " + job.getId() + " (" + job.getType() + " " + job.getTenantKey()
+                    + ") en échec, essai " + job.getAttempts() + "/" + job.getMaxAttempts()
+                    + ", nouvel essai dans " + delay.toSeconds() + " s : " + error);
+        });
+    }
+
+    /**
+     * Remet une tâche en attente pour après delay sans compter l'essai : le
+     * compte est en cours de synchronisation sur un autre nœud.
+     */
+    @Transactional
+    public void postpone(Long jobId, Duration delay) {
+        ownedJob(jobId).ifPresent(job -> {
+            job.setStatus(ScrapeJobStatus.PENDING);
+            job.setAttempts(Math.max(0, job.getAttempts() - 1));
+            job.setLeaseOwner(null);
+            job.setLeaseUntil(null);
+            job.setAvailableAt(LocalDateTime.now().plus(delay));
+        });
+    }
+
+    public long count(ScrapeJobStatus status) {
+        return jobRepository.countByStatus(status);
+    }
+
+    /**
+     * Supprime les tâches terminées avant before ; les tâches abandonnées sont
+     * conservées pour analyse.
+     */
+    @Transactional
+    public long purgeDone(LocalDateTime before) {
+        return jobRepository.deleteByStatusAndFinishedAtBefore(ScrapeJobStatus.DONE, before);
+    }
+
+    private ScrapeJob lease(ScrapeJob job, LocalDateTime now) {
+        job.setStatus(ScrapeJobStatus.RUNNING);
+        job.setAttempts(job.getAttempts() + 1);
+        job.setLeaseOwner(nodeId);
+        job.setLeaseUntil(now.plus(lease));
+        job.setHeartbeatAt(now);
+        return job;
+    }
+
+    private void bury(ScrapeJob job, String error, LocalDateTime now) {
+        job.setStatus(ScrapeJobStatus.DEAD);
+        job.setActiveKey(null);
+        job.setLastError(truncate(error));
+        job.setLeaseOwner(null);
+        job.setLeaseUntil(null);
+        job.setFinishedAt(now);
+        System.err.println("[Jobs] Tâche " + job.getId() + " (" + job.getType() + " " + job.getTenantKey()
+                + ") abandonnée après " + job.getAttempts() + " essais : " + error);
+    }
+
+    private Optional<ScrapeJob> ownedJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .filter(job -> job.getStatus() == ScrapeJobStatus.RUNNING && nodeId.equals(job.getLeaseOwner()));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
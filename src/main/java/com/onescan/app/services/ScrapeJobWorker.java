@@ -0,0 +1,147 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.DTO.JobQueueStats;
+import com.onescan.app.Entity.ScrapeJob;
+import com.onescan.app.Entity.ScrapeJobStatus;
+import com.onescan.app.Entity.ScrapeJobType;
+
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Worker de la file {@link ScrapeJobQueue} sur ce nœud : toutes les
+ * scrape.jobs.poll-interval, il réserve autant de tâches qu'il a de places
+ * libres (scrape.jobs.workers) et les exécute sur des threads virtuels. Les
+ * baux des tâches en cours sont prolongés au tiers de scrape.jobs.lease.
+ * Ajouter des nœuds ajoute des workers, sans autre broker que la base.
+ */
+@Component
+public class ScrapeJobWorker {
+
+    private final ScrapeJobQueue jobQueue;
+    private final TenantDirectory tenantDirectory;
+    private final Map<ScrapeJobType, ScrapeJobHandler> handlers = new EnumMap<>(ScrapeJobType.class);
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Tâches en cours d'exécution sur ce nœud
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private volatile Instant lastPurge = Instant.now();
+
+    @Value("${scrape.jobs.workers:4}")
+    private int workers;
+
+    @Value("${scrape.jobs.poll-interval:PT2S}")
+    private Duration pollInterval;
+
+    @Value("${scrape.jobs.retention:P7D}")
+    private Duration retention;
+
+    public ScrapeJobWorker(ScrapeJobQueue jobQueue, TenantDirectory tenantDirectory, List<ScrapeJobHandler> handlers) {
+        this.jobQueue = jobQueue;
+        this.tenantDirectory = tenantDirectory;
+        handlers.forEach(handler -> this.handlers.put(handler.getType(), handler));
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("scrape-jobs-");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!jobQueue.isEnabled()) {
+            return;
+        }
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::poll, pollInterval);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, jobQueue.getLease().dividedBy(3));
+        System.out.println("[Jobs] Worker " + jobQueue.getNodeId() + " démarré (" + workers + " places)");
+    }
+
+    public JobQueueStats getStats() {
+        return new JobQueueStats(jobQueue.getNodeId(),
+                jobQueue.count(ScrapeJobStatus.PENDING),
+                jobQueue.count(ScrapeJobStatus.RUNNING),
+                jobQueue.count(ScrapeJobStatus.DEAD),
+                running.size());
+    }
+
+    private void poll() {
+        try {
+            int free = Math.max(1, workers) - running.size();
+            for (ScrapeJob job : jobQueue.claim(free)) {
+                running.add(job.getId());
+                executor.submit(() -> execute(job));
+            }
+            purgeIfDue();
+        } catch (Exception e) {
+            System.err.println("[Jobs] Erreur lors de la réservation des tâches: " + e.getMessage());
+        }
+    }
+
+    private void execute(ScrapeJob job) {
+        long start = System.nanoTime();
+        try {
+            ScrapeJobHandler handler = handlers.get(job.getType());
+            if (handler == null) {
+                throw new IllegalStateException("Aucun traitement pour " + job.getType());
+            }
+            Tenant tenant = tenantDirectory.find(job.getPlateforme(), job.getPlatformId())
+                    .orElseThrow(() -> new IllegalStateException("Compte " + job.getTenantKey() + " introuvable"));
+            handler.handle(job, tenant);
+            jobQueue.complete(job.getId());
+            System.out.println("[Jobs] Tâche " + job.getId() + " (" + job.getType() + " " + job.getTenantKey()
+                    + ") terminée en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (LeaseUnavailableException e) {
+            jobQueue.postpone(job.getId(), pollInterval.multipliedBy(5));
+            System.out.println("[Jobs] Tâche " + job.getId() + " reportée : " + e.getMessage());
+        } catch (Exception e) {
+            jobQueue.fail(job.getId(), e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    private void heartbeat() {
+        for (Long jobId : running) {
+            try {
+                if (!jobQueue.heartbeat(jobId)) {
+                    System.err.println("[Jobs] Bail de la tâche " + jobId + " perdu, elle peut être rejouée ailleurs");
+                }
+            } catch (Exception e) {
+                System.err.println("[Jobs] Heartbeat de la tâche " + jobId + " impossible: " + e.getMessage());
+            }
+        }
+    }
+
+    private void purgeIfDue() {
+        if (lastPurge.plus(Duration.ofHours(1)).isAfter(Instant.now())) {
+            return;
+        }
+        lastPurge = Instant.now();
+        long purged = jobQueue.purgeDone(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            System.out.println("[Jobs] " + purged + " tâches terminées supprimées");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,121 @@
+package com.onescan.app.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.Entity.Plateforme;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Métriques Micrometer des scrapes, par plateforme, exposées sur
+ * /actuator/prometheus (jeton ADMIN requis) :
+ * <ul>
+ * <li>scrape.phase (phase=driver_init, login, verify, navigate, wait, extract,
+ * persist) : durée de chaque phase. Les phases s'imbriquent : un login
+ * comprend ses navigations et ses attentes.</li>
+ * <li>scrape.sync (statut) : durée d'une synchronisation complète.</li>
+ * <li>scrape.rows.extracted (source=dom, capture, http) et scrape.rows.skipped
+ * (raison) : lignes lues et lignes non sauvegardées. Le coût d'une ligne DOM
+ * est scrape.phase{phase=extract} / scrape.rows.extracted{source=dom}.</li>
+ * <li>scrape.parse.errors (champ, raison) : cellules manquantes ou illisibles.</li>
+ * <li>scrape.pool.* : état des pools de navigateurs.</li>
+ * </ul>
+ */
+@Component
+public class ScrapeMetrics {
+
+    public enum Phase {
+        DRIVER_INIT, LOGIN, VERIFY, NAVIGATE, WAIT, EXTRACT, PERSIST;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry registry;
+
+    // Timers des phases, résolus une fois par plateforme et phase
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+
+    public ScrapeMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Exécute action en comptant sa durée dans la phase, y compris en cas
+     * d'exception.
+     */
+    public <T> T time(Plateforme plateforme, Phase phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(plateforme, phase, start);
+        }
+    }
+
+    /**
+     * Compte le temps écoulé depuis startNanos (System.nanoTime) dans la phase.
+     */
+    public void record(Plateforme plateforme, Phase phase, long startNanos) {
+        phaseTimers.computeIfAbsent(plateforme + "/" + phase, key -> Timer.builder("scrape.phase")
+                .description("Durée des phases de scraping")
+                .tag("plateforme", plateforme.name())
+                .tag("phase", phase.tag)
+                .register(registry))
+                .record(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    public void sync(Plateforme plateforme, String statut, long dureeMs) {
+        Timer.builder("scrape.sync")
+                .description("Durée des synchronisations de la liste des commandes")
+                .tag("plateforme", plateforme.name())
+                .tag("statut", statut)
+                .register(registry)
+                .record(Duration.ofMillis(dureeMs));
+    }
+
+    public void rowsExtracted(Plateforme plateforme, String source, int count) {
+        if (count > 0) {
+            counter("scrape.rows.extracted", plateforme, "source", source).increment(count);
+        }
+    }
+
+    public void rowsSkipped(Plateforme plateforme, String reason, int count) {
+        if (count > 0) {
+            counter("scrape.rows.skipped", plateforme, "raison", reason).increment(count);
+        }
+    }
+
+    public void parseError(Plateforme plateforme, String field, String reason) {
+        Counter.builder("scrape.parse.errors")
+                .tag("plateforme", plateforme.name())
+                .tag("champ", field)
+                .tag("raison", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Jauge lue à chaque export (navigateurs empruntés, inactifs...).
+     */
+    public void gauge(Plateforme plateforme, String name, String description, Supplier<Number> value) {
+        Gauge.builder(name, value)
+                .description(description)
+                .tag("plateforme", plateforme.name())
+                .register(registry);
+    }
+
+    private Counter counter(String name, Plateforme plateforme, String tag, String value) {
+        return Counter.builder(name)
+                .tag("plateforme", plateforme.name())
+                .tag(tag, value)
+                .register(registry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase de démarrage optionnelle (selenium.warmup.enabled) : résout chromedriver
+ * puis ouvre et connecte selenium.warmup.drivers navigateurs par plateforme, en
+ * parallèle. Elle s'exécute avant que l'application soit déclarée prête.
+ */
+@Component
+public class SeleniumWarmup implements ApplicationRunner {
+
+    private final List<DentalPlatformService> platformServices;
+    private final ChromeDriverBinaries driverBinaries;
+    private final Environment environment;
+
+    @Value("${selenium.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${selenium.warmup.drivers:1}")
+    private int defaultDrivers;
+
+    @Value("${selenium.warmup.timeout:PT3M}")
+    private Duration timeout;
+
+    public SeleniumWarmup(List<DentalPlatformService> platformServices, ChromeDriverBinaries driverBinaries,
+            Environment environment) {
+        this.platformServices = platformServices;
+        this.driverBinaries = driverBinaries;
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        driverBinaries.ensureResolved();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<Void>> warmups = platformServices.stream()
+                    .filter(BaseSeleniumService.class::isInstance)
+                    .map(service -> CompletableFuture.runAsync(() -> warmUp((BaseSeleniumService) service), executor))
+                    .toList();
+            CompletableFuture.allOf(warmups.toArray(CompletableFuture[]::new))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Le démarrage continue : les navigateurs manquants seront ouverts à la demande
+            System.err.println("[Préchauffage] Interrompu: " + e.getMessage());
+        }
+
+        System.out.println("[Préchauffage] Terminé en " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                + " ms");
+    }
+
+    private void warmUp(BaseSeleniumService service) {
+        String key = "selenium.warmup." + service.getPlateforme().name().toLowerCase() + ".drivers";
+        int drivers = environment.getProperty(key, Integer.class, defaultDrivers);
+        long start = System.nanoTime();
+        int connected = service.warmUp(drivers);
+        System.out.println("[" + service.getPlateforme() + "] " + connected + "/" + drivers
+                + " navigateurs préchauffés en " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+}
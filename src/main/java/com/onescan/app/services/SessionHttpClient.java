@@ -0,0 +1,96 @@
+package com.onescan.app.services;
+
+import com.onescan.app.DTO.BrowserSessionSnapshot;
+import com.onescan.app.DTO.BrowserSessionSnapshot.CookieSnapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Client HTTP/2 partagé qui rejoue les cookies (et le jeton éventuel) d'une
+ * session obtenue par le navigateur. Les connexions sont réutilisées entre les
+ * requêtes ; Chrome ne sert plus qu'au login.
+ */
+@Component
+public class SessionHttpClient {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Value("${selenium.http.request-timeout:PT30S}")
+    private Duration requestTimeout;
+
+    /**
+     * GET authentifié. Le résultat est vide si la plateforme ne renvoie pas un
+     * code 2xx (session expirée, redirection vers le login, ...).
+     */
+    public CompletableFuture<Optional<String>> getAsync(BrowserSessionSnapshot session, String url,
+            String tokenStorageKey) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json, text/plain, */*")
+                .GET();
+
+        String cookies = cookieHeader(session, uri);
+        if (!cookies.isEmpty()) {
+            request.header("Cookie", cookies);
+        }
+
+        if (tokenStorageKey != null && session.localStorage().get(tokenStorageKey) != null) {
+            String token = session.localStorage().get(tokenStorageKey).replace("\"", "");
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    int status = response.statusCode();
+                    if (status >= 200 && status < 300) {
+                        return Optional.of(response.body());
+                    }
+                    System.err.println("[HTTP] " + url + " : statut " + status);
+                    return Optional.empty();
+                });
+    }
+
+    public Optional<String> get(BrowserSessionSnapshot session, String url, String tokenStorageKey) {
+        return getAsync(session, url, tokenStorageKey).join();
+    }
+
+    /**
+     * Cookies de la session applicables à l'URL (domaine, chemin, expiration).
+     */
+    private static String cookieHeader(BrowserSessionSnapshot session, URI uri) {
+        long now = System.currentTimeMillis();
+        String host = uri.getHost();
+        String path = uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath();
+
+        return session.cookies().stream()
+                .filter(cookie -> !cookie.isExpired(now))
+                .filter(cookie -> !cookie.secure() || "https".equals(uri.getScheme()))
+                .filter(cookie -> matchesDomain(cookie, host))
+                .filter(cookie -> cookie.path() == null || path.startsWith(cookie.path()))
+                .map(cookie -> cookie.name() + "=" + cookie.value())
+                .collect(Collectors.joining("; "));
+    }
+
+    private static boolean matchesDomain(CookieSnapshot cookie, String host) {
+        if (cookie.domain() == null) {
+            return true;
+        }
+        String domain = cookie.domain().startsWith(".") ? cookie.domain().substring(1) : cookie.domain();
+        return host.equals(domain) || host.endsWith("." + domain);
+    }
+}
@@ -0,0 +1,239 @@
+package com.onescan.app.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Quelques processus Chrome partagés par tous les services et tous les comptes
+ * (selenium.contexts.enabled). Chaque navigateur du pool y ouvre son propre
+ * contexte (Target.createBrowserContext) : cookies, stockage et cache séparés,
+ * comme une fenêtre de navigation privée, pour quelques dizaines de Mo au lieu
+ * des 150 à 300 Mo d'un Chrome complet.
+ * <p>
+ * Un chromedriver est rattaché à Chrome (debuggerAddress) pour chaque contexte
+ * afin que chaque session garde sa propre WebDriver. Au plus
+ * selenium.contexts.max-per-browser contextes par Chrome ; au-delà, un nouveau
+ * Chrome est lancé, jusqu'à selenium.contexts.max-browsers.
+ */
+@Component
+public class SharedChrome {
+
+    private final ChromeDriverBinaries driverBinaries;
+    private final ObjectMapper objectMapper;
+
+    // Chrome partagés, protégés par le moniteur de l'instance
+    private final List<Host> hosts = new ArrayList<>();
+
+    @Value("${selenium.contexts.enabled:false}")
+    private boolean enabled;
+
+    @Value("${selenium.contexts.max-per-browser:16}")
+    private int maxPerBrowser;
+
+    @Value("${selenium.contexts.max-browsers:2}")
+    private int maxBrowsers;
+
+    public SharedChrome(ChromeDriverBinaries driverBinaries, ObjectMapper objectMapper) {
+        this.driverBinaries = driverBinaries;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ouvre un contexte isolé avec un onglet vierge, piloté par son propre
+     * chromedriver. {@link BrowserContext#close()} le supprime de Chrome.
+     */
+    public BrowserContext open(String label) {
+        Host host = reserve();
+        String contextId = null;
+        try {
+            contextId = host.cdp.send("Target.createBrowserContext", Map.of("disposeOnDetach", false))
+                    .path("browserContextId").asText();
+            JsonNode target = host.cdp.send("Target.createTarget", Map.of(
+                    "url", "about:blank",
+                    "browserContextId", contextId,
+                    "width", 1920,
+                    "height", 1080));
+            String targetId = target.path("targetId").asText();
+
+            ChromeOptions options = new ChromeOptions();
+            options.setExperimentalOption("debuggerAddress", host.debuggerAddress);
+            ChromeDriverService service = ChromeDriverService.createDefaultService();
+            WebDriver driver = driverBinaries.start(service, options);
+            switchToTarget(driver, targetId);
+
+            String id = contextId;
+            System.out.println("[Chrome partagé] Contexte " + label + " ouvert (" + host.contexts
+                    + " sur le Chrome " + host.debuggerAddress + ")");
+            return new BrowserContext(id, driver, ProcessMemory.chromedriverOnPort(service.getUrl().getPort()),
+                    () -> dispose(host, id));
+        } catch (RuntimeException e) {
+            if (contextId != null) {
+                dispose(host, contextId);
+            } else {
+                release(host);
+            }
+            throw new IllegalStateException("[Chrome partagé] Ouverture du contexte " + label + " impossible: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Processus chromedriver des Chrome partagés, connus du watchdog.
+     */
+    public synchronized Set<Long> getDriverPids() {
+        Set<Long> pids = new HashSet<>();
+        for (Host host : hosts) {
+            if (host.process != null) {
+                pids.add(host.process.pid());
+            }
+        }
+        return pids;
+    }
+
+    public synchronized int getContextCount() {
+        return hosts.stream().mapToInt(host -> host.contexts).sum();
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        hosts.forEach(this::quit);
+        hosts.clear();
+    }
+
+    /**
+     * Chrome le moins chargé sous la limite, ou un nouveau Chrome. Les Chrome
+     * morts sont retirés au passage.
+     */
+    private synchronized Host reserve() {
+        hosts.removeIf(host -> {
+            if (host.cdp.isOpen()) {
+                return false;
+            }
+            System.err.println("[Chrome partagé] Chrome " + host.debuggerAddress + " perdu, "
+                    + host.contexts + " contextes fermés");
+            quit(host);
+            return true;
+        });
+
+        Host host = hosts.stream()
+                .filter(candidate -> candidate.contexts < maxPerBrowser)
+                .min(Comparator.comparingInt(candidate -> candidate.contexts))
+                .orElse(null);
+        if (host == null && hosts.size() < Math.max(1, maxBrowsers)) {
+            host = launch();
+            hosts.add(host);
+        }
+        if (host == null) {
+            // Tous les Chrome sont pleins : on surcharge le moins chargé plutôt que d'échouer
+            host = hosts.stream().min(Comparator.comparingInt(candidate -> candidate.contexts)).orElseThrow();
+        }
+        host.contexts++;
+        return host;
+    }
+
+    private synchronized void release(Host host) {
+        host.contexts--;
+        // Un seul Chrome reste ouvert quand il n'y a plus de contexte
+        if (host.contexts <= 0 && hosts.size() > 1 && hosts.remove(host)) {
+            quit(host);
+        }
+    }
+
+    private void dispose(Host host, String contextId) {
+        try {
+            if (host.cdp.isOpen()) {
+                host.cdp.send("Target.disposeBrowserContext", Map.of("browserContextId", contextId));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[Chrome partagé] Suppression du contexte impossible: " + e.getMessage());
+        } finally {
+            release(host);
+        }
+    }
+
+    private Host launch() {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments(
+                "--no-sandbox",
+                "--disable-dev-shm-usage",
+                "--remote-allow-origins=*",
+                "--disable-gpu",
+                "--window-size=1920,1080",
+                "--headless=new");
+
+        ChromeDriverService service = ChromeDriverService.createDefaultService();
+        ChromeDriver driver = driverBinaries.start(service, options);
+        try {
+            Map<?, ?> chromeOptions = (Map<?, ?>) driver.getCapabilities().getCapability("goog:chromeOptions");
+            String debuggerAddress = String.valueOf(chromeOptions.get("debuggerAddress"));
+            BrowserCdp cdp = BrowserCdp.connect(debuggerAddress, objectMapper);
+            System.out.println("[Chrome partagé] Chrome lancé sur " + debuggerAddress);
+            return new Host(driver, ProcessMemory.chromedriverOnPort(service.getUrl().getPort()), debuggerAddress,
+                    cdp);
+        } catch (Exception e) {
+            driver.quit();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Connexion DevTools au Chrome partagé impossible: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Place le chromedriver rattaché sur l'onglet du contexte : ses handles de
+     * fenêtre sont les identifiants de cible DevTools.
+     */
+    private static void switchToTarget(WebDriver driver, String targetId) {
+        String handle = driver.getWindowHandles().stream()
+                .filter(candidate -> candidate.equalsIgnoreCase(targetId) || candidate.endsWith(targetId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Onglet " + targetId + " introuvable"));
+        driver.switchTo().window(handle);
+    }
+
+    private void quit(Host host) {
+        host.cdp.close();
+        try {
+            host.driver.quit();
+        } catch (Exception e) {
+            System.err.println("[Chrome partagé] Erreur lors de la fermeture de Chrome: " + e.getMessage());
+        }
+        if (host.process != null && host.process.isAlive()) {
+            ProcessMemory.killTree(host.process);
+        }
+    }
+
+    private static final class Host {
+
+        private final ChromeDriver driver;
+        private final ProcessHandle process;
+        private final String debuggerAddress;
+        private final BrowserCdp cdp;
+        private int contexts;
+
+        private Host(ChromeDriver driver, ProcessHandle process, String debuggerAddress, BrowserCdp cdp) {
+            this.driver = driver;
+            this.process = process;
+            this.debuggerAddress = debuggerAddress;
+            this.cdp = cdp;
+        }
+    }
+}
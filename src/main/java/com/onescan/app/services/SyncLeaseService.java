@@ -0,0 +1,258 @@
+package com.onescan.app.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.onescan.app.Entity.SyncLease;
+import com.onescan.app.repository.SyncLeaseRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Baux exclusifs partagés par les nœuds dans la table sync_leases
+ * (sync.lease.enabled) : un seul nœud à la fois synchronise un compte, et un
+ * seul fait tourner le planificateur. Les baux détenus sont prolongés tous les
+ * tiers de sync.lease.ttl ; un nœud arrêté ou bloqué perd les siens au bout de
+ * ce délai et un autre nœud les reprend.
+ * <p>
+ * Chaque prise de bail reçoit un nouveau jeton de fencing. Les écritures d'une
+ * synchronisation passent par {@link #fenced} : le jeton y est revérifié sous
+ * verrou, dans la transaction de l'écriture. Les horloges des nœuds doivent
+ * être synchronisées (NTP) à une fraction du ttl près.
+ */
+@Service
+public class SyncLeaseService {
+
+    private final SyncLeaseRepository leaseRepository;
+    private final TransactionTemplate transactions;
+    private final String nodeId;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    // Baux détenus par ce nœud, par clé
+    private final Map<String, Holding> held = new ConcurrentHashMap<>();
+
+    @Value("${sync.lease.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.lease.ttl:PT15S}")
+    private Duration ttl;
+
+    public SyncLeaseService(SyncLeaseRepository leaseRepository, PlatformTransactionManager transactionManager,
+            ClusterNode clusterNode) {
+        this.leaseRepository = leaseRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.nodeId = clusterNode.getId();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("sync-leases-");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::renewAll, ttl.dividedBy(3));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Exécute action en détenant le bail key. Les appels simultanés de ce nœud
+     * partagent le même bail, rendu à la fin du dernier.
+     *
+     * @throws LeaseUnavailableException si un autre nœud détient le bail
+     */
+    public <T> T runExclusive(String key, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        enter(key, false);
+        try {
+            return action.get();
+        } finally {
+            exit(key);
+        }
+    }
+
+    /**
+     * Prend le bail key s'il est libre et le garde jusqu'à l'arrêt du nœud ou sa
+     * perte (élection d'un leader). Retourne true si ce nœud le détient.
+     */
+    public boolean holdPermanently(String key) {
+        if (!enabled) {
+            return true;
+        }
+        if (held.containsKey(key)) {
+            return true;
+        }
+        try {
+            enter(key, true);
+            System.out.println("[Cluster] " + nodeId + " détient désormais " + key);
+            return true;
+        } catch (LeaseUnavailableException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Exécute une écriture protégée par le jeton de fencing : la ligne du bail
+     * key est verrouillée (SELECT ... FOR UPDATE) et le jeton vérifié, puis
+     * write s'exécute pendant que ce verrou est tenu. Si write ouvre sa propre
+     * transaction (CommandeStore, REQUIRES_NEW), elle est validée avant la
+     * libération du verrou : aucun autre nœud ne peut reprendre le bail entre la
+     * vérification et la validation. L'écriture n'est en revanche pas annulée si
+     * la transaction du bail échoue ensuite. L'appelant doit détenir le bail
+     * ({@link #runExclusive}) ; l'écriture n'est directe que si les baux sont
+     * désactivés.
+     *
+     * @throws LeaseUnavailableException si ce nœud ne détient pas le bail, ou
+     *                                   s'il a été repris par un autre nœud
+     */
+    public <T> T fenced(String key, Supplier<T> write) {
+        if (!enabled) {
+            return write.get();
+        }
+        Holding holding = held.get(key);
+        if (holding == null) {
+            throw new LeaseUnavailableException("Bail " + key + " non détenu par " + nodeId + ", écriture refusée");
+        }
+        return transactions.execute(status -> {
+            SyncLease lease = leaseRepository.findByLockKey(key).orElse(null);
+            if (lease == null || !nodeId.equals(lease.getOwner()) || lease.getFencingToken() != holding.token) {
+                throw new LeaseUnavailableException("Bail " + key + " perdu (jeton " + holding.token
+                        + "), écriture refusée");
+            }
+            return write.get();
+        });
+    }
+
+    public List<SyncLease> getLeases() {
+        return leaseRepository.findAll();
+    }
+
+    private synchronized void enter(String key, boolean permanent) {
+        Holding holding = held.get(key);
+        if (holding == null) {
+            long token = acquire(key).orElseThrow(() -> new LeaseUnavailableException(
+                    "Synchronisation de " + key + " en cours sur un autre nœud"));
+            holding = new Holding(token, permanent);
+            held.put(key, holding);
+        }
+        holding.users++;
+    }
+
+    private synchronized void exit(String key) {
+        Holding holding = held.get(key);
+        if (holding == null) {
+            // Bail perdu pendant l'opération : déjà retiré par renewAll
+            return;
+        }
+        holding.users--;
+        if (holding.users <= 0 && !holding.permanent) {
+            held.remove(key);
+            release(key, holding.token);
+        }
+    }
+
+    /**
+     * Prend le bail s'il est libre, expiré ou déjà à ce nœud, avec un nouveau
+     * jeton ; vide si un autre nœud le détient.
+     */
+    private OptionalLong acquire(String key) {
+        try {
+            Long token = transactions.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                SyncLease lease = leaseRepository.findByLockKey(key).orElse(null);
+                if (lease == null) {
+                    lease = new SyncLease();
+                    lease.setLockKey(key);
+                } else if (lease.getOwner() != null && !nodeId.equals(lease.getOwner())
+                        && lease.getLeaseUntil() != null && lease.getLeaseUntil().isAfter(now)) {
+                    return null;
+                }
+                lease.setFencingToken(lease.getFencingToken() + 1);
+                lease.setOwner(nodeId);
+                lease.setLeaseUntil(now.plus(ttl));
+                lease.setAcquiredAt(now);
+                lease.setRenewedAt(now);
+                leaseRepository.save(lease);
+                return lease.getFencingToken();
+            });
+            return token != null ? OptionalLong.of(token) : OptionalLong.empty();
+        } catch (DataIntegrityViolationException e) {
+            // Un autre nœud a créé la ligne au même moment
+            return OptionalLong.empty();
+        }
+    }
+
+    private void release(String key, long token) {
+        try {
+            transactions.executeWithoutResult(status -> leaseRepository.findByLockKey(key)
+                    .filter(lease -> nodeId.equals(lease.getOwner()) && lease.getFencingToken() == token)
+                    .ifPresent(lease -> {
+                        lease.setOwner(null);
+                        lease.setLeaseUntil(null);
+                    }));
+        } catch (Exception e) {
+            // Le bail expirera de lui-même
+            System.err.println("[Cluster] Libération du bail " + key + " impossible: " + e.getMessage());
+        }
+    }
+
+    private void renewAll() {
+        held.forEach((key, holding) -> {
+            try {
+                Boolean renewed = transactions.execute(status -> leaseRepository.findByLockKey(key)
+                        .filter(lease -> nodeId.equals(lease.getOwner()) && lease.getFencingToken() == holding.token)
+                        .map(lease -> {
+                            LocalDateTime now = LocalDateTime.now();
+                            lease.setLeaseUntil(now.plus(ttl));
+                            lease.setRenewedAt(now);
+                            return true;
+                        })
+                        .orElse(false));
+                if (!Boolean.TRUE.equals(renewed)) {
+                    held.remove(key, holding);
+                    System.err.println("[Cluster] Bail " + key + " perdu par " + nodeId);
+                }
+            } catch (Exception e) {
+                System.err.println("[Cluster] Renouvellement du bail " + key + " impossible: " + e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        // Arrêt propre : les autres nœuds reprennent les baux sans attendre leur expiration
+        held.forEach((key, holding) -> release(key, holding.token));
+        held.clear();
+    }
+
+    private static final class Holding {
+
+        private final long token;
+        private final boolean permanent;
+        private int users;
+
+        private Holding(long token, boolean permanent) {
+            this.token = token;
+            this.permanent = permanent;
+        }
+    }
+}
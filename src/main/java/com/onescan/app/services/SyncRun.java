@@ -0,0 +1,127 @@
+package com.onescan.app.services;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+import java.time.LocalDate;
+
+/**
+ * Une synchronisation en cours : incrémentale (since non null) ou complète.
+ * Les listes sont lues de la plus récente à la plus ancienne, la première ligne
+ * antérieure au watermark marque donc la fin des nouveautés.
+ */
+public class SyncRun {
+
+    private final Tenant tenant;
+    private final LocalDate since;
+
+    private LocalDate newestDateReception;
+    private Long maxExternalId;
+    private int saved;
+    private boolean watermarkReached;
+    private boolean endReached;
+    private String failure;
+
+    SyncRun(Tenant tenant, LocalDate since) {
+        this.tenant = tenant;
+        this.since = since;
+    }
+
+    public Tenant getTenant() {
+        return tenant;
+    }
+
+    public Plateforme getPlateforme() {
+        return tenant.plateforme();
+    }
+
+    public boolean isFull() {
+        return since == null;
+    }
+
+    public LocalDate getSince() {
+        return since;
+    }
+
+    /**
+     * Vrai si la commande a été reçue avant le watermark. Les commandes du jour
+     * du watermark sont relues : plusieurs peuvent arriver le même jour.
+     */
+    public boolean isOld(Commande commande) {
+        if (since == null || commande.getDateReception() == null) {
+            return false;
+        }
+        boolean old = commande.getDateReception().isBefore(since);
+        if (old) {
+            watermarkReached = true;
+        }
+        return old;
+    }
+
+    /**
+     * Vrai dès qu'une ligne plus ancienne que le watermark a été rencontrée :
+     * les pages suivantes ne contiennent plus rien de nouveau.
+     */
+    public boolean isWatermarkReached() {
+        return watermarkReached;
+    }
+
+    /**
+     * La liste a été lue jusqu'à sa dernière page (ni budget max-pages, ni
+     * lecture partielle).
+     */
+    public void reachEnd() {
+        endReached = true;
+    }
+
+    /**
+     * Vrai si la synchronisation a tout relu depuis le watermark, ou toute la
+     * liste, sans erreur : le watermark peut alors avancer.
+     */
+    public boolean isComplete() {
+        return failure == null && (endReached || watermarkReached);
+    }
+
+    public void observe(Commande commande) {
+        saved++;
+        LocalDate date = commande.getDateReception();
+        if (date != null && (newestDateReception == null || date.isAfter(newestDateReception))) {
+            newestDateReception = date;
+        }
+        Long externalId = commande.getExternalId();
+        // Les clés de repli (négatives, ExtractionSchema.fallbackKey) ne sont pas ordonnées
+        if (externalId != null && externalId > 0 && (maxExternalId == null || externalId > maxExternalId)) {
+            maxExternalId = externalId;
+        }
+    }
+
+    public LocalDate getNewestDateReception() {
+        return newestDateReception;
+    }
+
+    public Long getMaxExternalId() {
+        return maxExternalId;
+    }
+
+    public int getSaved() {
+        return saved;
+    }
+
+    /**
+     * Signale une erreur pendant la synchronisation (login, page, sauvegarde) :
+     * elle ne sera pas rapportée comme réussie. Seule la première cause est gardée.
+     */
+    public void fail(String reason) {
+        if (failure == null) {
+            failure = reason != null ? reason : "erreur inconnue";
+        }
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,156 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import com.onescan.app.Entity.Plateforme;
+
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Synchronise chaque compte ({@link Tenant}) en arrière-plan, à l'intervalle de
+ * sa plateforme (sync.schedule.interval.<plateforme>). Un décalage aléatoire
+ * évite que tous les comptes démarrent Chrome en même temps. Les endpoints GET
+ * lisent la base ; ils n'ouvrent plus de navigateur.
+ * <p>
+ * Toutes les sync.schedule.tick, les comptes arrivés à échéance sont lancés du
+ * plus en retard au moins en retard, au plus sync.tenants.max-concurrent à la
+ * fois : des centaines de laboratoires se partagent ainsi un nombre borné de
+ * navigateurs.
+ * <p>
+ * Dans un cluster, seul le nœud qui détient le bail {@value #LEADER_LEASE}
+ * planifie ; si ce nœud tombe, un autre le reprend après sync.lease.ttl.
+ */
+@Component
+public class SyncScheduler {
+
+    static final String LEADER_LEASE = "SCHEDULER";
+
+    private final PlatformSyncService platformSyncService;
+    private final SyncLeaseService syncLeases;
+    private final Environment environment;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    // Prochaine synchronisation de chaque compte (par Tenant.key())
+    private final Map<String, Instant> nextRunAt = new ConcurrentHashMap<>();
+    private volatile Semaphore running;
+
+    @Value("${sync.schedule.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sync.schedule.initial-delay:PT1M}")
+    private Duration initialDelay;
+
+    @Value("${sync.schedule.interval.default:PT15M}")
+    private Duration defaultInterval;
+
+    @Value("${sync.schedule.jitter:PT2M}")
+    private Duration jitter;
+
+    @Value("${sync.schedule.tick:PT15S}")
+    private Duration tick;
+
+    @Value("${sync.tenants.max-concurrent:4}")
+    private int maxConcurrent;
+
+    public SyncScheduler(PlatformSyncService platformSyncService, SyncLeaseService syncLeases,
+            Environment environment) {
+        this.platformSyncService = platformSyncService;
+        this.syncLeases = syncLeases;
+        this.environment = environment;
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("sync-scheduler-");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            System.out.println("[Sync] Synchronisation planifiée désactivée");
+            return;
+        }
+        running = new Semaphore(Math.max(1, maxConcurrent));
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::tick, Instant.now().plus(initialDelay), tick);
+    }
+
+    /**
+     * Lance les comptes arrivés à échéance, dans la limite des places libres.
+     * Les comptes ajoutés depuis le dernier passage sont planifiés après un
+     * décalage aléatoire ; ceux supprimés sont oubliés.
+     */
+    private void tick() {
+        try {
+            if (!syncLeases.holdPermanently(LEADER_LEASE)) {
+                // Un autre nœud planifie ; à la reprise, les comptes repartent avec un décalage
+                nextRunAt.clear();
+                return;
+            }
+            Instant now = Instant.now();
+            List<Tenant> tenants = platformSyncService.getTenants();
+            Set<String> keys = tenants.stream().map(Tenant::key).collect(Collectors.toSet());
+            nextRunAt.keySet().retainAll(keys);
+            tenants.forEach(tenant -> nextRunAt.computeIfAbsent(tenant.key(), key -> now.plus(randomJitter())));
+
+            List<Tenant> due = tenants.stream()
+                    .filter(tenant -> !nextRunAt.get(tenant.key()).isAfter(now))
+                    .sorted(Comparator.comparing(tenant -> nextRunAt.get(tenant.key())))
+                    .toList();
+            for (int i = 0; i < due.size(); i++) {
+                if (!running.tryAcquire()) {
+                    System.out.println("[Sync] " + (due.size() - i) + " comptes en attente d'une place");
+                    return;
+                }
+                run(due.get(i));
+            }
+        } catch (Exception e) {
+            System.err.println("[Sync] Erreur de planification: " + e.getMessage());
+        }
+    }
+
+    private void run(Tenant tenant) {
+        // Replanifié dès le lancement : un scrape long ne relance pas le même compte au tick suivant
+        nextRunAt.put(tenant.key(), Instant.now().plus(intervalFor(tenant.plateforme())).plus(randomJitter()));
+        try {
+            platformSyncService.refresh(tenant).whenComplete((result, error) -> {
+                running.release();
+                if (error != null) {
+                    System.err.println("[Sync] " + tenant + " : erreur de synchronisation planifiée "
+                            + error.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            running.release();
+            throw e;
+        }
+    }
+
+    private Duration intervalFor(Plateforme plateforme) {
+        String key = "sync.schedule.interval." + plateforme.name().toLowerCase();
+        return environment.getProperty(key, Duration.class, defaultInterval);
+    }
+
+    private Duration randomJitter() {
+        long bound = jitter.toMillis();
+        return bound > 0 ? Duration.ofMillis(ThreadLocalRandom.current().nextLong(bound + 1)) : Duration.ZERO;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
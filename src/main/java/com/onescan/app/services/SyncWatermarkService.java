@@ -0,0 +1,102 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.Entity.SyncWatermark;
+import com.onescan.app.repository.SyncWatermarkRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * Watermarks de synchronisation par compte plateforme. Une synchronisation est
+ * incrémentale tant que la dernière réconciliation complète a moins de
+ * sync.delta.full-every.
+ */
+@Service
+public class SyncWatermarkService {
+
+    private final SyncWatermarkRepository watermarkRepository;
+    private final SyncLeaseService syncLeases;
+
+    @Value("${sync.delta.enabled:true}")
+    private boolean deltaEnabled;
+
+    @Value("${sync.delta.full-every:PT24H}")
+    private Duration fullEvery;
+
+    public SyncWatermarkService(SyncWatermarkRepository watermarkRepository, SyncLeaseService syncLeases) {
+        this.watermarkRepository = watermarkRepository;
+        this.syncLeases = syncLeases;
+    }
+
+    public SyncRun begin(Tenant tenant) {
+        SyncWatermark watermark = watermarkRepository.findById(tenant.key()).orElse(null);
+        boolean full = !deltaEnabled
+                || watermark == null
+                || watermark.getLastDateReception() == null
+                || watermark.getLastFullSyncAt() == null
+                || watermark.getLastFullSyncAt().plus(fullEvery).isBefore(LocalDateTime.now());
+
+        SyncRun run = new SyncRun(tenant, full ? null : watermark.getLastDateReception());
+        System.out.println("[" + tenant + "] Synchronisation "
+                + (full ? "complète" : "incrémentale depuis le " + run.getSince()));
+        return run;
+    }
+
+    /**
+     * Fin de la dernière synchronisation réussie du compte, quel que soit le
+     * nœud qui l'a faite.
+     */
+    public Optional<Instant> lastSuccess(Tenant tenant) {
+        return watermarkRepository.findById(tenant.key())
+                .map(SyncWatermark::getLastSuccessAt)
+                .map(at -> at.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Date la synchronisation si elle a réussi, et avance le watermark si elle a
+     * tout relu ({@link SyncRun#isComplete()}). Une synchronisation arrêtée par le
+     * budget max-pages ou en échec laisse des commandes non lues : le watermark
+     * ne bouge pas et la réconciliation complète reste due. Un nœud qui a perdu
+     * le bail du compte entre-temps ne modifie rien.
+     */
+    public void complete(SyncRun run) {
+        if (run.isFailed()) {
+            return;
+        }
+
+        SyncWatermark watermark = watermarkRepository.findById(run.getTenant().key()).orElseGet(() -> {
+            SyncWatermark created = new SyncWatermark();
+            created.setTenantKey(run.getTenant().key());
+            created.setPlateforme(run.getPlateforme());
+            return created;
+        });
+        LocalDateTime now = LocalDateTime.now();
+        if (run.isComplete()) {
+            if (run.getNewestDateReception() != null && (watermark.getLastDateReception() == null
+                    || run.getNewestDateReception().isAfter(watermark.getLastDateReception()))) {
+                watermark.setLastDateReception(run.getNewestDateReception());
+            }
+            if (run.getMaxExternalId() != null && (watermark.getLastExternalId() == null
+                    || run.getMaxExternalId() > watermark.getLastExternalId())) {
+                watermark.setLastExternalId(run.getMaxExternalId());
+            }
+            if (run.isFull() && run.getSaved() > 0) {
+                watermark.setLastFullSyncAt(now);
+            }
+        }
+        watermark.setLastSuccessAt(now);
+        watermark.setUpdatedAt(now);
+        try {
+            syncLeases.fenced(run.getTenant().key(), () -> watermarkRepository.save(watermark));
+        } catch (LeaseUnavailableException e) {
+            System.err.println("[" + run.getTenant() + "] Watermark non avancé: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.onescan.app.services;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+/**
+ * Compte d'un laboratoire sur une plateforme, pour lequel les synchronisations
+ * tournent avec leurs propres navigateurs, session et watermark.
+ *
+ * @param plateforme plateforme scrapée
+ * @param platformId compte {@code Platform} en base, null pour le compte du
+ *                   fichier .env
+ * @param ownerId    utilisateur propriétaire des commandes synchronisées,
+ *                   {@link Commande#ENV_OWNER_ID} pour le compte du .env
+ * @param username   identifiant de connexion, null pour le compte du .env
+ * @param password   mot de passe, null pour le compte du .env
+ */
+public record Tenant(
+        Plateforme plateforme,
+        Long platformId,
+        Long ownerId,
+        String username,
+        String password) {
+
+    /**
+     * Compte historique dont les identifiants viennent du fichier .env ; ses
+     * commandes appartiennent à ownerId, ou à {@link Commande#ENV_OWNER_ID}.
+     */
+    public static Tenant env(Plateforme plateforme, Long ownerId) {
+        return new Tenant(plateforme, null, ownerId != null ? ownerId : Commande.ENV_OWNER_ID, null, null);
+    }
+
+    public boolean isEnv() {
+        return platformId == null;
+    }
+
+    /**
+     * Clé unique du compte (THREESHAPE, THREESHAPE#42...), utilisée pour les
+     * pools de navigateurs, les sessions et les watermarks.
+     */
+    public String key() {
+        return isEnv() ? plateforme.name() : plateforme.name() + "#" + platformId;
+    }
+
+    @Override
+    public String toString() {
+        // Jamais le mot de passe dans les logs
+        return key();
+    }
+}
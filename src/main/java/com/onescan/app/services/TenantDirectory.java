@@ -0,0 +1,129 @@
+package com.onescan.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.Entity.Platform;
+import com.onescan.app.repository.PlatformRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Comptes à synchroniser : un par {@link Platform} enregistrée par un
+ * utilisateur, plus le compte du fichier .env de chaque plateforme
+ * (sync.tenants.env-enabled).
+ */
+@Service
+public class TenantDirectory {
+
+    // Noms saisis par les utilisateurs -> plateforme scrapée
+    private static final Map<String, Plateforme> ALIASES = Map.of(
+            "3SHAPE", Plateforme.THREESHAPE,
+            "3SHAPECOMMUNICATE", Plateforme.THREESHAPE,
+            "ISCONNECT", Plateforme.DEXIS,
+            "DEXISISCONNECT", Plateforme.DEXIS,
+            "MYITERO", Plateforme.ITERO);
+
+    private final PlatformRepository platformRepository;
+
+    @Value("${sync.tenants.env-enabled:true}")
+    private boolean envEnabled;
+
+    @Value("${sync.tenants.env-owner-id:#{null}}")
+    private Long envOwnerId;
+
+    public TenantDirectory(PlatformRepository platformRepository) {
+        this.platformRepository = platformRepository;
+    }
+
+    /**
+     * Tous les comptes des plateformes supportées.
+     */
+    public List<Tenant> getTenants(Collection<Plateforme> supported) {
+        List<Tenant> tenants = new ArrayList<>();
+        if (envEnabled) {
+            supported.forEach(plateforme -> tenants.add(envTenant(plateforme)));
+        }
+        for (Platform platform : platformRepository.findAll()) {
+            toTenant(platform)
+                    .filter(tenant -> supported.contains(tenant.plateforme()))
+                    .ifPresent(tenants::add);
+        }
+        return tenants;
+    }
+
+    public Tenant envTenant(Plateforme plateforme) {
+        return Tenant.env(plateforme, envOwnerId);
+    }
+
+    /**
+     * Compte d'une tâche en file : platformId, ou le compte du .env s'il est
+     * null.
+     */
+    public Optional<Tenant> find(Plateforme plateforme, Long platformId) {
+        if (platformId == null) {
+            return Optional.of(envTenant(plateforme));
+        }
+        return platformRepository.findById(platformId).flatMap(this::toTenant);
+    }
+
+    /**
+     * Compte platformId, s'il appartient à l'utilisateur userEmail.
+     */
+    public Optional<Tenant> find(Long platformId, String userEmail) {
+        return platformRepository.findById(platformId)
+                .filter(platform -> platform.getUser() != null
+                        && platform.getUser().getEmail().equalsIgnoreCase(userEmail))
+                .flatMap(this::toTenant);
+    }
+
+    /**
+     * Compte d'un utilisateur sur une plateforme, vide s'il n'en a pas
+     * enregistré : il ne voit ainsi que ses propres commandes. Le compte du .env
+     * n'est utilisé que par la planification et l'administration.
+     */
+    public Optional<Tenant> tenantFor(Plateforme plateforme, String userEmail) {
+        if (userEmail == null) {
+            return Optional.empty();
+        }
+        return platformRepository.findByUserEmail(userEmail).stream()
+                .map(this::toTenant)
+                .flatMap(Optional::stream)
+                .filter(tenant -> tenant.plateforme() == plateforme)
+                .findFirst();
+    }
+
+    private Optional<Tenant> toTenant(Platform platform) {
+        Plateforme plateforme = resolve(platform.getName());
+        if (plateforme == null || platform.getUser() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Tenant(plateforme, platform.getId(), platform.getUser().getId(),
+                platform.getEmail(), platform.getPassword()));
+    }
+
+    /**
+     * Plateforme correspondant au nom saisi, null si elle n'est pas scrapée.
+     */
+    static Plateforme resolve(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.toUpperCase().replaceAll("[^A-Z0-9]", "");
+        Plateforme alias = ALIASES.get(normalized);
+        if (alias != null) {
+            return alias;
+        }
+        try {
+            Plateforme plateforme = Plateforme.valueOf(normalized);
+            return plateforme == Plateforme.AUTRE ? null : plateforme;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.onescan.app.services;
+
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Pool borné de navigateurs pour une plateforme. Chaque appel emprunte un
+ * emplacement, l'utilise seul, puis le rend : deux scrapes simultanés ne
+ * partagent jamais le même navigateur.
+ */
+public class WebDriverPool {
+
+    private final String name;
+    private final int maxSize;
+    private final Duration maxIdle;
+    private final Duration maxLifetime;
+    private final Duration borrowTimeout;
+    private final Predicate<WebDriver> healthCheck;
+
+    private final Semaphore permits;
+    private final Deque<PooledDriver> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledDriver> all = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean closed = false;
+    private volatile Instant lastBorrowedAt = Instant.now();
+
+    public WebDriverPool(String name, int maxSize, Duration maxIdle, Duration maxLifetime,
+            Duration borrowTimeout, Predicate<WebDriver> healthCheck) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxIdle = maxIdle;
+        this.maxLifetime = maxLifetime;
+        this.borrowTimeout = borrowTimeout;
+        this.healthCheck = healthCheck;
+        this.permits = new Semaphore(this.maxSize, true);
+    }
+
+    /**
+     * Emprunte un emplacement. Les navigateurs inactifs expirés ou morts sont
+     * fermés au passage ; si aucun n'est réutilisable, un emplacement vide est
+     * rendu et le navigateur sera créé par l'appelant.
+     */
+    public PooledDriver borrow() {
+        if (closed) {
+            throw new IllegalStateException("[" + name + "] Pool de drivers fermé");
+        }
+        lastBorrowedAt = Instant.now();
+
+        try {
+            if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("[" + name + "] Aucun driver disponible après "
+                        + borrowTimeout.toSeconds() + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[" + name + "] Attente d'un driver interrompue", e);
+        }
+        if (closed) {
+            // Fermé pendant l'attente (closeIfIdle)
+            permits.release();
+            throw new IllegalStateException("[" + name + "] Pool de drivers fermé");
+        }
+
+        PooledDriver slot;
+        while ((slot = idle.pollFirst()) != null) {
+            if (slot.getDriver() != null
+                    && !slot.isExpired(maxLifetime, maxIdle)
+                    && healthCheck.test(slot.getDriver())) {
+                slot.touch();
+                return slot;
+            }
+            destroy(slot);
+        }
+
+        slot = new PooledDriver(generation.get());
+        all.add(slot);
+        return slot;
+    }
+
+    /**
+     * Rend un emplacement au pool. Il est conservé tant que son navigateur est
+     * vivant, n'a pas expiré et n'a pas été invalidé par {@link #clear()}.
+     */
+    public void release(PooledDriver slot) {
+        try {
+            if (closed
+                    || slot.getDriver() == null
+                    || slot.getGeneration() != generation.get()
+                    || slot.isExpired(maxLifetime, maxIdle)) {
+                destroy(slot);
+            } else {
+                slot.touch();
+                idle.offerFirst(slot);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Ferme le navigateur de l'emplacement sans le rendre : l'emplacement reste
+     * emprunté et pourra recevoir un nouveau navigateur.
+     */
+    public void discard(PooledDriver slot) {
+        quit(slot);
+    }
+
+    /**
+     * Ferme tous les navigateurs inactifs ; ceux en cours d'utilisation seront
+     * fermés à leur retour.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        PooledDriver slot;
+        while ((slot = idle.pollFirst()) != null) {
+            destroy(slot);
+        }
+    }
+
+    public void close() {
+        closed = true;
+        clear();
+    }
+
+    /**
+     * Ferme le pool s'il n'a aucun emplacement emprunté. Tous les permis sont
+     * pris le temps de la fermeture : aucun emprunt ne peut aboutir entre la
+     * vérification et la fermeture.
+     *
+     * @return true si le pool a été fermé
+     */
+    public boolean closeIfIdle() {
+        if (!permits.tryAcquire(maxSize)) {
+            return false;
+        }
+        try {
+            close();
+            return true;
+        } finally {
+            permits.release(maxSize);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ferme les navigateurs inactifs qui ont dépassé max-idle ou max-lifetime,
+     * sans attendre le prochain emprunt. Un emplacement emprunté entre-temps
+     * n'est pas touché.
+     *
+     * @return le nombre de navigateurs fermés
+     */
+    public int evictExpired() {
+        int evicted = 0;
+        for (PooledDriver slot : idle) {
+            // remove() échoue si borrow() vient de prendre cet emplacement
+            if (slot.isExpired(maxLifetime, maxIdle) && idle.remove(slot)) {
+                destroy(slot);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Vrai si au moins un navigateur du pool a une session ouverte.
+     */
+    public boolean hasLoggedInDriver() {
+        return all.stream().anyMatch(PooledDriver::isLoggedIn);
+    }
+
+    /**
+     * Emplacements existants, empruntés ou inactifs.
+     */
+    public List<PooledDriver> getSlots() {
+        return List.copyOf(all);
+    }
+
+    public Instant getLastBorrowedAt() {
+        return lastBorrowedAt;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Appels bloqués dans {@link #borrow()} faute de navigateur libre
+     * (estimation).
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    private void destroy(PooledDriver slot) {
+        all.remove(slot);
+        quit(slot);
+    }
+
+    /**
+     * Ferme le navigateur de l'emplacement. Si quit() échoue ou laisse le
+     * processus en vie, chromedriver et le Chrome qu'il a lancé sont tués pour
+     * ne pas rester orphelins. Dans un Chrome partagé, l'emplacement n'a lancé
+     * que son chromedriver : seul ce processus est tué, puis le contexte est
+     * supprimé ; le Chrome et ses autres contextes restent intacts.
+     */
+    private void quit(PooledDriver slot) {
+        ProcessHandle process = slot.getProcess();
+        BrowserContext context = slot.detachContext();
+        WebDriver driver = slot.detach();
+        if (driver == null) {
+            return;
+        }
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            System.err.println("[" + name + "] Erreur lors de la fermeture du driver: " + e.getMessage());
+        }
+        if (process != null && process.isAlive()) {
+            if (context != null) {
+                process.destroyForcibly();
+            } else {
+                ProcessMemory.killTree(process);
+            }
+        }
+        // Chrome partagé : le chromedriver rattaché ne ferme pas les onglets du contexte
+        if (context != null) {
+            context.close();
+        }
+    }
+}
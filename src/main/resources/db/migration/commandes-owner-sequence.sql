@@ -0,0 +1,51 @@
+-- Migration d'une base existante (MySQL) vers le schéma des commandes par propriétaire.
+--
+-- ddl-auto=update ne suffit pas sur une base créée avant ce changement :
+--  * commande_seq serait créée à 1 alors que commandes contient déjà des id
+--    IDENTITY : les INSERT entreraient en collision sur la clé primaire ;
+--  * l'ancien index unique sur external_id seul n'est jamais supprimé : deux
+--    laboratoires important le même cas se bloqueraient ;
+--  * owner_id doit valoir 0 (compte du .env, Commande.ENV_OWNER_ID) sur les
+--    lignes existantes.
+--
+-- À exécuter une fois, application arrêtée, avant le premier démarrage de la
+-- nouvelle version :  mysql -u root app < commandes-owner-sequence.sql
+-- Le script peut être rejoué sans effet de bord.
+
+-- 1. owner_id renseigné sur les lignes existantes
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'commandes' AND COLUMN_NAME = 'owner_id') = 0,
+        'ALTER TABLE commandes ADD COLUMN owner_id BIGINT NOT NULL DEFAULT 0',
+        'UPDATE commandes SET owner_id = 0 WHERE owner_id IS NULL');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 2. Suppression de l'index unique sur external_id seul (nom généré par Hibernate)
+SET @old_index = (SELECT s.INDEX_NAME FROM information_schema.STATISTICS s
+                  WHERE s.TABLE_SCHEMA = DATABASE() AND s.TABLE_NAME = 'commandes' AND s.NON_UNIQUE = 0
+                    AND s.INDEX_NAME <> 'PRIMARY'
+                  GROUP BY s.INDEX_NAME
+                  HAVING COUNT(*) = 1 AND MAX(s.COLUMN_NAME) = 'external_id'
+                  LIMIT 1);
+SET @sql = IF(@old_index IS NULL, 'DO 0', CONCAT('ALTER TABLE commandes DROP INDEX `', @old_index, '`'));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 3. Unicité par plateforme et propriétaire (uk_commande_owner_external_id)
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'commandes'
+                 AND INDEX_NAME = 'uk_commande_owner_external_id') = 0,
+        'ALTER TABLE commandes ADD CONSTRAINT uk_commande_owner_external_id UNIQUE (plateforme, external_id, owner_id)',
+        'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 4. Séquence des id (table commande_seq, MySQL n'ayant pas de séquence) placée
+--    après le plus grand id existant. Hibernate réserve les id par blocs de 50
+--    (allocationSize) : la marge d'un bloc évite de redistribuer un id existant.
+CREATE TABLE IF NOT EXISTS commande_seq (next_val BIGINT);
+DELETE FROM commande_seq;
+INSERT INTO commande_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 + 50 FROM commandes;
@@ -0,0 +1,86 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveRateLimiterTests {
+
+	private static final Duration SLOW = Duration.ofSeconds(2);
+
+	@Test
+	void initialRateIsClampedToBounds() {
+		assertEquals(5.0, new AdaptiveRateLimiter(50, 1, 5, SLOW).getRate());
+		assertEquals(1.0, new AdaptiveRateLimiter(0.1, 1, 5, SLOW).getRate());
+	}
+
+	@Test
+	void failureHalvesRateDownToMinimum() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(8, 1, 10, SLOW);
+
+		limiter.onFailure();
+		assertEquals(4.0, limiter.getRate());
+		limiter.onFailure();
+		limiter.onFailure();
+		limiter.onFailure();
+		assertEquals(1.0, limiter.getRate());
+	}
+
+	@Test
+	void fastSuccessRaisesRateUpToMaximum() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(4, 1, 5, SLOW);
+
+		limiter.onSuccess(Duration.ofMillis(100));
+		assertEquals(4.4, limiter.getRate(), 1e-9);
+		for (int i = 0; i < 10; i++) {
+			limiter.onSuccess(Duration.ofMillis(100));
+		}
+		assertEquals(5.0, limiter.getRate());
+	}
+
+	@Test
+	void slowSuccessCountsAsSlowDown() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(4, 1, 5, SLOW);
+
+		limiter.onSuccess(Duration.ofSeconds(3));
+
+		assertEquals(2.0, limiter.getRate());
+	}
+
+	@Test
+	void backoffDoublesPerAttemptAndIsCapped() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(2, 1, 5, SLOW);
+
+		assertEquals(Duration.ofMillis(1000), limiter.backoff(1));
+		assertEquals(Duration.ofMillis(2000), limiter.backoff(2));
+		assertEquals(Duration.ofMillis(16000), limiter.backoff(5));
+		assertEquals(Duration.ofMillis(16000), limiter.backoff(9));
+	}
+
+	@Test
+	void backoffFollowsCurrentRate() {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(4, 1, 5, SLOW);
+		assertEquals(Duration.ofMillis(500), limiter.backoff(1));
+
+		limiter.onFailure();
+
+		assertEquals(Duration.ofMillis(1000), limiter.backoff(1));
+	}
+
+	@Test
+	void acquirePacesRequestsAtCurrentRate() throws InterruptedException {
+		AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(20, 1, 20, SLOW);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 5; i++) {
+			limiter.acquire();
+		}
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		// Un premier jeton disponible, puis un toutes les 50 ms
+		assertTrue(elapsed.compareTo(Duration.ofMillis(180)) >= 0, "durée: " + elapsed);
+	}
+}
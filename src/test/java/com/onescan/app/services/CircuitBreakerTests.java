@@ -0,0 +1,137 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTests {
+
+	@Test
+	void staysClosedBelowThreshold() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+		breaker.onFailure();
+		breaker.onFailure();
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+		assertNull(breaker.getOpenUntil());
+	}
+
+	@Test
+	void opensAfterThresholdAndRejects() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+		breaker.onFailure();
+		breaker.onFailure();
+
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertTrue(breaker.isRejecting());
+		assertFalse(breaker.tryAcquire());
+		assertEquals(1, breaker.getRejected());
+		assertNotNull(breaker.getOpenUntil());
+	}
+
+	@Test
+	void successResetsConsecutiveFailures() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(1, breaker.getConsecutiveFailures());
+	}
+
+	@Test
+	void halfOpenLetsOneProbeThrough() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO, Duration.ZERO);
+		breaker.onFailure();
+
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.isRejecting());
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.isRejecting());
+		assertFalse(breaker.tryAcquire());
+	}
+
+	@Test
+	void successfulProbeClosesBreaker() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO, Duration.ZERO);
+		breaker.onFailure();
+		assertTrue(breaker.tryAcquire());
+
+		breaker.onSuccess();
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(0, breaker.getConsecutiveFailures());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void cancelledProbeFreesHalfOpenSlot() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ZERO, Duration.ZERO);
+		breaker.onFailure();
+		assertTrue(breaker.tryAcquire());
+
+		breaker.cancel();
+
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void failedProbeReopensForDoubledDuration() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(20), Duration.ofMinutes(10));
+		breaker.onFailure();
+		awaitHalfOpen(breaker);
+		assertTrue(breaker.tryAcquire());
+
+		Instant before = Instant.now();
+		breaker.onFailure();
+		Instant after = Instant.now();
+
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertOpenFor(breaker, Duration.ofMillis(40), before, after);
+	}
+
+	@Test
+	void reopenDurationIsCapped() {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofMillis(20), Duration.ofMillis(30));
+		breaker.onFailure();
+		for (int probe = 0; probe < 3; probe++) {
+			awaitHalfOpen(breaker);
+			assertTrue(breaker.tryAcquire());
+			Instant before = Instant.now();
+			breaker.onFailure();
+			Instant after = Instant.now();
+			assertOpenFor(breaker, Duration.ofMillis(30), before, after);
+		}
+	}
+
+	private static void assertOpenFor(CircuitBreaker breaker, Duration expected, Instant before, Instant after) {
+		Instant openUntil = breaker.getOpenUntil();
+		assertFalse(openUntil.isBefore(before.plus(expected)), "ouvert jusqu'à " + openUntil);
+		assertFalse(openUntil.isAfter(after.plus(expected)), "ouvert jusqu'à " + openUntil);
+	}
+
+	private static void awaitHalfOpen(CircuitBreaker breaker) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (breaker.getState() != CircuitBreaker.State.HALF_OPEN) {
+			assertTrue(System.nanoTime() < deadline, "disjoncteur resté ouvert");
+			try {
+				Thread.sleep(5);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError(e);
+			}
+		}
+	}
+}
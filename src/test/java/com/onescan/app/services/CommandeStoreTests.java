@@ -0,0 +1,138 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.repository.CommandeRepository;
+
+class CommandeStoreTests {
+
+	private CommandeRepository repository;
+	private CommandeStore store;
+
+	// Listes passées à saveAll, dans l'ordre : insertions puis entités déjà relues
+	private final List<List<Commande>> savedBatches = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(CommandeRepository.class);
+		store = new CommandeStore(repository, mock(PlatformTransactionManager.class));
+		when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+			List<Commande> batch = new ArrayList<>(invocation.getArgument(0));
+			savedBatches.add(batch);
+			return batch;
+		});
+	}
+
+	@Test
+	void insertsUnknownCommandes() {
+		Commande commande = commande(1L, "Dupont");
+
+		List<Commande> saved = store.upsert(List.of(commande));
+
+		assertEquals(List.of(commande), saved);
+		assertEquals(List.of(commande), savedBatches.get(0));
+		verify(repository).findByPlateformeAndOwnerIdAndExternalIdIn(eq(Plateforme.THREESHAPE),
+				eq(Commande.ENV_OWNER_ID), eq(List.of(1L)));
+	}
+
+	@Test
+	void updatesListColumnsAndKeepsUserState() {
+		Commande stored = commande(1L, "Ancien");
+		stored.setId(10L);
+		stored.setVu(true);
+		stored.setCommentaire("déjà lu");
+		when(repository.findByPlateformeAndOwnerIdAndExternalIdIn(any(), any(), anyCollection()))
+				.thenReturn(List.of(stored));
+
+		List<Commande> saved = store.upsert(List.of(commande(1L, "Nouveau")));
+
+		assertEquals(1, saved.size());
+		assertSame(stored, saved.get(0));
+		assertEquals("Nouveau", stored.getRefPatient());
+		assertTrue(stored.getVu());
+		assertEquals("déjà lu", stored.getCommentaire());
+		assertTrue(savedBatches.get(0).isEmpty(), "aucune insertion attendue");
+	}
+
+	@Test
+	void skipsCommandesWithoutExternalId() {
+		Commande withoutKey = commande(null, "Sans id");
+
+		List<Commande> saved = store.upsert(List.of(withoutKey, commande(2L, "Martin")));
+
+		assertEquals(1, saved.size());
+		assertEquals(2L, saved.get(0).getExternalId());
+		savedBatches.forEach(batch -> assertFalse(batch.contains(withoutKey)));
+	}
+
+	@Test
+	void keepsOneCommandePerKey() {
+		Commande first = commande(3L, "Page 1");
+		Commande second = commande(3L, "Page 2");
+
+		List<Commande> saved = store.upsert(List.of(first, second));
+
+		assertEquals(List.of(second), saved);
+		assertEquals(List.of(second), savedBatches.get(0));
+	}
+
+	@Test
+	void replaysBatchAfterConcurrentInsert() {
+		Commande incoming = commande(4L, "Nouveau");
+		Commande insertedElsewhere = commande(4L, "Autre nœud");
+		insertedElsewhere.setId(40L);
+		when(repository.findByPlateformeAndOwnerIdAndExternalIdIn(any(), any(), anyCollection()))
+				.thenReturn(List.of())
+				.thenReturn(List.of(insertedElsewhere));
+		when(repository.saveAll(anyList()))
+				.thenAnswer(invocation -> {
+					List<Commande> batch = invocation.getArgument(0);
+					batch.forEach(commande -> commande.setId(99L));
+					throw new DataIntegrityViolationException("uk_commande_owner_external_id");
+				})
+				.thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+
+		List<Commande> saved = store.upsert(List.of(incoming));
+
+		assertEquals(List.of(insertedElsewhere), saved);
+		assertEquals("Nouveau", insertedElsewhere.getRefPatient());
+		// L'identifiant attribué pendant le lot annulé ne doit pas survivre
+		assertNull(incoming.getId());
+		ArgumentCaptor<List<Commande>> batches = ArgumentCaptor.captor();
+		verify(repository, times(3)).saveAll(batches.capture());
+		assertTrue(batches.getAllValues().get(1).isEmpty(), "le second passage ne réinsère rien");
+	}
+
+	private static Commande commande(Long externalId, String refPatient) {
+		Commande commande = new Commande();
+		commande.setPlateforme(Plateforme.THREESHAPE);
+		commande.setOwnerId(Commande.ENV_OWNER_ID);
+		commande.setExternalId(externalId);
+		commande.setRefPatient(refPatient);
+		commande.setVu(false);
+		return commande;
+	}
+}
@@ -0,0 +1,212 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+class ExtractionSchemaTests {
+
+	private static ExtractionSchemaRegistry registry;
+
+	// Schémas réels de application.properties
+	@BeforeAll
+	static void compileSchemas() throws IOException {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources()
+				.addFirst(new ResourcePropertySource("classpath:application.properties"));
+		registry = new ExtractionSchemaRegistry(environment);
+		registry.compile();
+	}
+
+	@Test
+	void threeShapeReadsIdAndDateFromCaseNumber() {
+		Commande commande = schema(Plateforme.THREESHAPE).toCommande(Map.of(
+				"patient", "Dupont",
+				"caseNumber", "1417512720_20250718_1655_08",
+				"deliveryDate", "2025-07-25"));
+
+		assertEquals(1417512720L, commande.getExternalId());
+		assertEquals(LocalDate.of(2025, 7, 18), commande.getDateReception());
+		assertEquals(LocalDate.of(2025, 7, 25), commande.getDateEcheance());
+		assertEquals("N/A", commande.getCabinet(), "cabinet absent : N/A comme avant les schémas");
+	}
+
+	@Test
+	void threeShapeKeepsCaseNumberWithoutUnderscore() {
+		Commande commande = schema(Plateforme.THREESHAPE).toCommande(Map.of(
+				"patient", "Dupont",
+				"caseNumber", "1417512720"));
+
+		assertEquals(1417512720L, commande.getExternalId());
+		assertNull(commande.getDateReception());
+	}
+
+	@Test
+	void threeShapeKeepsNonNumericCaseNumberUnderFallbackKey() {
+		Map<String, String> row = Map.of(
+				"patient", "Dupont",
+				"caseNumber", "14175A_20250718_1655_08",
+				"deliveryDate", "-");
+
+		Commande commande = schema(Plateforme.THREESHAPE).toCommande(row);
+
+		assertNotNull(commande);
+		assertTrue(commande.getExternalId() < 0, "clé de repli négative, hors des identifiants de la plateforme");
+		assertEquals(commande.getExternalId(), schema(Plateforme.THREESHAPE).toCommande(row).getExternalId());
+		assertEquals(ExtractionSchema.fallbackKey("14175A_20250718_1655_08"), commande.getExternalId());
+		assertNull(commande.getDateEcheance());
+	}
+
+	@Test
+	void threeShapeRowWithoutCaseNumberHasNoKey() {
+		Commande commande = schema(Plateforme.THREESHAPE).toCommande(Map.of("patient", "Dupont"));
+
+		assertNull(commande.getExternalId());
+	}
+
+	@Test
+	void iteroDropsRowWithUnreadableDate() {
+		List<String> errors = new ArrayList<>();
+		Commande commande = schema(Plateforme.ITERO).toCommande(Map.of(
+				"externalId", "123",
+				"refPatient", "Martin",
+				"dateReception", "pas une date",
+				"dateLivraison", "01/08/2025"), (property, reason) -> errors.add(property + ":" + reason));
+
+		assertNull(commande);
+		assertEquals(List.of("dateReception:illisible"), errors);
+	}
+
+	@Test
+	void iteroDropsRowWithoutDueDate() {
+		assertNull(schema(Plateforme.ITERO).toCommande(Map.of(
+				"externalId", "123",
+				"refPatient", "Martin",
+				"dateReception", "18/07/2025")));
+	}
+
+	@Test
+	void iteroReadsCompleteRow() {
+		Commande commande = schema(Plateforme.ITERO).toCommande(Map.of(
+				"externalId", " 123 ",
+				"refPatient", "Martin",
+				"cabinet", "Cabinet A",
+				"dateReception", "18/07/2025",
+				"dateLivraison", "01/08/2025"));
+
+		assertEquals(123L, commande.getExternalId());
+		assertEquals(Plateforme.ITERO, commande.getPlateforme());
+		assertEquals(LocalDate.of(2025, 8, 1), commande.getDateEcheance());
+	}
+
+	@Test
+	void dexisFallsBackToTodayForMissingOrUnreadableDate() {
+		ExtractionSchema dexis = schema(Plateforme.DEXIS);
+
+		Commande missing = dexis.toCommande(Map.of("patient", "Durand", "caseId", "NGO-6991"));
+		Commande unreadable = dexis.toCommande(Map.of("patient", "Durand", "caseId", "NGO-6991",
+				"sectionDate", "2025-07-11"));
+
+		assertEquals(6991L, missing.getExternalId());
+		assertEquals(LocalDate.now(), missing.getDateReception());
+		assertEquals(LocalDate.now(), unreadable.getDateReception());
+	}
+
+	@Test
+	void dexisDropsCaseWithoutNumericId() {
+		assertNull(schema(Plateforme.DEXIS).toCommande(Map.of("patient", "Durand", "caseId", "NGO-69A")));
+	}
+
+	@Test
+	void missingRequiredFieldIsReported() {
+		List<String> errors = new ArrayList<>();
+
+		Commande commande = schema(Plateforme.MEDITLINK).toCommande(Map.of("externalId", "42"),
+				(property, reason) -> errors.add(property + ":" + reason));
+
+		assertNull(commande);
+		assertEquals(List.of("refPatient:manquant"), errors);
+	}
+
+	@Test
+	void meditLinkDateWithTimeIsReadAsDate() {
+		Commande commande = schema(Plateforme.MEDITLINK).toCommande(Map.of(
+				"patient", "Petit",
+				"externalId", "42",
+				"creationDate", "2025-07-18 16:55"));
+
+		assertEquals(LocalDate.of(2025, 7, 18), commande.getDateReception());
+		assertNull(commande.getDateEcheance());
+	}
+
+	@Test
+	void dateCellsExcludeRegexFields() {
+		assertEquals(Set.of("deliveryDate"),
+				schema(Plateforme.THREESHAPE).getDateCells().keySet());
+	}
+
+	@Test
+	void undeclaredCellFailsCompilation() {
+		ExtractionSchemaConfig config = config(Map.of("refPatient", field("inconnue", null, null, false)));
+
+		assertThrows(IllegalStateException.class, () -> ExtractionSchema.compile(Plateforme.ITERO, config));
+	}
+
+	@Test
+	void unknownPropertyFailsCompilation() {
+		ExtractionSchemaConfig config = config(Map.of("patient", field("patient", null, null, false)));
+
+		assertThrows(IllegalStateException.class, () -> ExtractionSchema.compile(Plateforme.ITERO, config));
+	}
+
+	@Test
+	void dateWithoutFormatFailsCompilation() {
+		ExtractionSchemaConfig config = config(Map.of("dateReception", field("patient", null, null, false)));
+
+		assertThrows(IllegalStateException.class, () -> ExtractionSchema.compile(Plateforme.ITERO, config));
+	}
+
+	@Test
+	void defaultTodayOnNonDateFailsCompilation() {
+		ExtractionSchemaConfig config = config(Map.of("refPatient", field("patient", null, null, true)));
+
+		assertThrows(IllegalStateException.class, () -> ExtractionSchema.compile(Plateforme.ITERO, config));
+	}
+
+	@Test
+	void invalidRegexFailsCompilation() {
+		ExtractionSchemaConfig config = config(Map.of("refPatient", field("patient", "(", null, false)));
+
+		assertThrows(RuntimeException.class, () -> ExtractionSchema.compile(Plateforme.ITERO, config));
+	}
+
+	private static ExtractionSchema schema(Plateforme plateforme) {
+		return registry.get(plateforme).orElseThrow();
+	}
+
+	private static ExtractionSchemaConfig config(Map<String, ExtractionSchemaConfig.FieldConfig> fields) {
+		return new ExtractionSchemaConfig("tr", "table", Map.of("patient", "td"), fields);
+	}
+
+	private static ExtractionSchemaConfig.FieldConfig field(String cell, String regex, String format,
+			boolean defaultToday) {
+		return new ExtractionSchemaConfig.FieldConfig(cell, regex, format, false, null, null, defaultToday);
+	}
+}
@@ -0,0 +1,120 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onescan.app.DTO.BrowserSessionSnapshot;
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JsonRowReaderTests {
+
+	private static final Tenant TENANT = Tenant.env(Plateforme.MEDITLINK, null);
+	private static final String LIST_URL = "https://api.meditlink.test/inbox";
+	private static final String LIST_BODY = """
+			{"data": {"items": [
+				{"id": 12, "patient": "Dupont"},
+				{"id": 11, "patient": "Martin"}
+			]}}""";
+
+	private MockEnvironment environment;
+	private BrowserSessionStore sessionStore;
+	private SessionHttpClient httpClient;
+	private JsonRowReader reader;
+
+	@BeforeEach
+	void setUp() {
+		environment = new MockEnvironment()
+				.withProperty("selenium.http.meditlink.enabled", "true")
+				.withProperty("selenium.http.meditlink.list-url", LIST_URL)
+				.withProperty("selenium.capture.meditlink.items-path", "data.items")
+				.withProperty("selenium.capture.meditlink.fields.externalId", "id")
+				.withProperty("selenium.capture.meditlink.fields.refPatient", "patient");
+		sessionStore = mock(BrowserSessionStore.class);
+		httpClient = mock(SessionHttpClient.class);
+		ExtractionSchemaRegistry schemas = mock(ExtractionSchemaRegistry.class);
+		when(schemas.get(any())).thenReturn(Optional.empty());
+		reader = new JsonRowReader(environment, sessionStore, httpClient, mock(FixtureRecorder.class),
+				new ObjectMapper(), new ScrapeMetrics(new SimpleMeterRegistry()), schemas);
+
+		BrowserSessionSnapshot session = new BrowserSessionSnapshot(0L, "https://meditlink.test", List.of(), Map.of());
+		when(sessionStore.load(TENANT)).thenReturn(Optional.of(session));
+		when(httpClient.getAsync(eq(session), eq(LIST_URL), any()))
+				.thenReturn(CompletableFuture.completedFuture(Optional.of(LIST_BODY)));
+	}
+
+	@Test
+	void readsTheWholeListWithTheSavedSession() {
+		Optional<List<Map<String, String>>> rows = reader.listOverHttp(Plateforme.MEDITLINK, TENANT);
+
+		assertEquals(Optional.of(List.of(
+				Map.of("externalId", "12", "refPatient", "Dupont"),
+				Map.of("externalId", "11", "refPatient", "Martin"))), rows);
+	}
+
+	@Test
+	void fallsBackToChromeWhenDisabled() {
+		environment.setProperty("selenium.http.meditlink.enabled", "false");
+
+		assertTrue(reader.listOverHttp(Plateforme.MEDITLINK, TENANT).isEmpty());
+		verify(httpClient, never()).getAsync(any(), any(), any());
+	}
+
+	@Test
+	void fallsBackToChromeWithoutSession() {
+		when(sessionStore.load(TENANT)).thenReturn(Optional.empty());
+
+		assertTrue(reader.listOverHttp(Plateforme.MEDITLINK, TENANT).isEmpty());
+	}
+
+	@Test
+	void fallsBackToChromeWhenTheSessionIsRefused() {
+		when(httpClient.getAsync(any(), eq(LIST_URL), any()))
+				.thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+		assertTrue(reader.listOverHttp(Plateforme.MEDITLINK, TENANT).isEmpty());
+	}
+
+	@Test
+	void fullHttpListCompletesTheSync() {
+		CommandeStore commandeStore = mock(CommandeStore.class);
+		SyncLeaseService syncLeases = mock(SyncLeaseService.class);
+		when(syncLeases.fenced(eq(TENANT.key()), any())).thenAnswer(invocation -> {
+			Supplier<?> write = invocation.getArgument(1);
+			return write.get();
+		});
+		when(commandeStore.upsert(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		RowPersister persister = new RowPersister(commandeStore, syncLeases,
+				new ScrapeMetrics(new SimpleMeterRegistry()));
+		SyncRun run = new SyncRun(TENANT, null);
+
+		List<Commande> saved = reader.listOverHttp(Plateforme.MEDITLINK, TENANT)
+				.map(rows -> persister.persistAll(TENANT, rows, row -> new Commande(Long.valueOf(row.get("externalId")),
+						row.get("refPatient"), null, null, Plateforme.MEDITLINK, null, null, null, false), run))
+				.orElseThrow();
+
+		assertEquals(2, saved.size());
+		assertTrue(run.isComplete(), "une liste lue en entier par HTTP doit compléter la synchronisation");
+		assertEquals(12L, run.getMaxExternalId());
+	}
+}
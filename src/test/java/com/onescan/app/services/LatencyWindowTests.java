@@ -0,0 +1,53 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyWindowTests {
+
+	@Test
+	void emptyWindowReturnsZero() {
+		LatencyWindow window = new LatencyWindow(10);
+
+		assertEquals(0, window.size());
+		assertEquals(0, window.percentile(0.95));
+	}
+
+	@Test
+	void percentilesUseNearestRank() {
+		LatencyWindow window = new LatencyWindow(100);
+		for (long millis = 100; millis >= 1; millis--) {
+			window.record(millis);
+		}
+
+		assertEquals(100, window.size());
+		assertEquals(1, window.percentile(0));
+		assertEquals(50, window.percentile(0.5));
+		assertEquals(95, window.percentile(0.95));
+		assertEquals(100, window.percentile(1));
+	}
+
+	@Test
+	void singleSampleIsEveryPercentile() {
+		LatencyWindow window = new LatencyWindow(5);
+		window.record(42);
+
+		assertEquals(42, window.percentile(0.1));
+		assertEquals(42, window.percentile(0.99));
+	}
+
+	@Test
+	void oldestSamplesAreOverwritten() {
+		LatencyWindow window = new LatencyWindow(3);
+		window.record(1000);
+		window.record(1000);
+		window.record(10);
+		window.record(20);
+		window.record(30);
+
+		assertEquals(3, window.size());
+		assertEquals(30, window.percentile(1));
+		assertEquals(10, window.percentile(0));
+	}
+}
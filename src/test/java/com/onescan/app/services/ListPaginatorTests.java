@@ -0,0 +1,177 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+class ListPaginatorTests {
+
+	private static final Tenant TENANT = Tenant.env(Plateforme.ITERO, null);
+
+	private MockEnvironment environment;
+	private ListPaginator paginator;
+
+	@BeforeEach
+	void setUp() {
+		environment = new MockEnvironment();
+		paginator = new ListPaginator(environment);
+		ReflectionTestUtils.setField(paginator, "defaultMaxPages", 50);
+		ReflectionTestUtils.setField(paginator, "defaultSettleTimeout", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(paginator, "maxReturned", 500);
+	}
+
+	@Test
+	void paginationFallsBackToSinglePageWithoutNextSelector() {
+		environment.setProperty("selenium.pagination.itero.mode", "NEXT_BUTTON");
+
+		assertEquals(Pagination.Mode.NONE, paginator.getPagination(Plateforme.ITERO).mode());
+
+		environment.setProperty("selenium.pagination.itero.next-selector", "button.next");
+		environment.setProperty("selenium.pagination.itero.max-pages", "3");
+		Pagination pagination = paginator.getPagination(Plateforme.ITERO);
+		assertEquals(Pagination.Mode.NEXT_BUTTON, pagination.mode());
+		assertEquals(3, pagination.maxPages());
+		assertEquals(Duration.ofSeconds(10), pagination.settleTimeout());
+	}
+
+	@Test
+	void singlePageReachesTheEnd() {
+		SyncRun run = new SyncRun(TENANT, null);
+		FakePages pages = new FakePages(1);
+
+		List<Commande> commandes = paginator.readAll(Plateforme.ITERO, pagination(Pagination.Mode.NONE, 50), pages,
+				this::persist, run);
+
+		assertEquals(2, commandes.size());
+		assertEquals(0, pages.nextCalls);
+		assertTrue(run.isComplete(), "une liste sans pagination est lue en entier");
+	}
+
+	@Test
+	void readsEveryPageUntilTheLastOne() {
+		SyncRun run = new SyncRun(TENANT, null);
+		FakePages pages = new FakePages(3);
+
+		List<Commande> commandes = paginator.readAll(Plateforme.ITERO, pagination(Pagination.Mode.NEXT_BUTTON, 50),
+				pages, this::persist, run);
+
+		assertEquals(6, commandes.size());
+		assertEquals(3, pages.nextCalls);
+		assertTrue(run.isComplete());
+	}
+
+	@Test
+	void pageBudgetLeavesTheRunIncomplete() {
+		SyncRun run = new SyncRun(TENANT, null);
+		FakePages pages = new FakePages(5);
+
+		paginator.readAll(Plateforme.ITERO, pagination(Pagination.Mode.NEXT_BUTTON, 2), pages, this::persist, run);
+
+		assertEquals(2, pages.reads.size());
+		assertFalse(run.isComplete(), "le budget max-pages ne vaut pas une lecture complète");
+	}
+
+	@Test
+	void stopsAtTheWatermark() {
+		SyncRun run = new SyncRun(TENANT, LocalDate.of(2025, 3, 1));
+		FakePages pages = new FakePages(5);
+		pages.oldFromPage = 1;
+
+		paginator.readAll(Plateforme.ITERO, pagination(Pagination.Mode.NEXT_BUTTON, 50), pages,
+				rows -> persistAfter(rows, run), run);
+
+		assertEquals(2, pages.reads.size());
+		assertTrue(run.isComplete(), "le watermark atteint rend la synchronisation complète");
+	}
+
+	@Test
+	void scrollReadsOnlyNewRows() {
+		FakePages pages = new FakePages(3);
+
+		paginator.readAll(Plateforme.ITERO, pagination(Pagination.Mode.SCROLL, 50), pages, this::persist, null);
+
+		assertEquals(List.of(0, 2, 4), pages.reads);
+	}
+
+	@Test
+	void keepsOnlyMaxReturnedCommandesInMemory() {
+		ReflectionTestUtils.setField(paginator, "maxReturned", 3);
+
+		List<Commande> commandes = paginator.readAll(Plateforme.ITERO, pagination(Pagination.Mode.NEXT_BUTTON, 50),
+				new FakePages(3), this::persist, null);
+
+		assertEquals(3, commandes.size());
+	}
+
+	private List<Commande> persist(List<Map<String, String>> rows) {
+		return persistAfter(rows, null);
+	}
+
+	private List<Commande> persistAfter(List<Map<String, String>> rows, SyncRun run) {
+		List<Commande> saved = new ArrayList<>();
+		for (Map<String, String> row : rows) {
+			Commande commande = new Commande(Long.valueOf(row.get("id")), "Dupont", LocalDate.parse(row.get("date")),
+					null, Plateforme.ITERO, null, null, null, false);
+			if (run == null || !run.isOld(commande)) {
+				saved.add(commande);
+			}
+		}
+		return saved;
+	}
+
+	private static Pagination pagination(Pagination.Mode mode, int maxPages) {
+		return new Pagination(mode, "button.next", null, maxPages, Duration.ofSeconds(1));
+	}
+
+	/**
+	 * Liste de pages de deux lignes ; les lignes des pages à partir de
+	 * oldFromPage sont antérieures au watermark.
+	 */
+	private static class FakePages implements ListPaginator.Pages {
+
+		private final int pageCount;
+		private final List<Integer> reads = new ArrayList<>();
+		private int page;
+		private int nextCalls;
+		private int oldFromPage = Integer.MAX_VALUE;
+
+		FakePages(int pageCount) {
+			this.pageCount = pageCount;
+		}
+
+		@Override
+		public List<Map<String, String>> read(int fromIndex) {
+			reads.add(fromIndex);
+			String date = page >= oldFromPage ? "2025-02-01" : "2025-03-02";
+			return IntStream.range(0, 2)
+					.mapToObj(i -> Map.of("id", String.valueOf(page * 2 + i + 1), "date", date))
+					.toList();
+		}
+
+		@Override
+		public boolean nextPage(Pagination pagination) {
+			nextCalls++;
+			return ++page < pageCount;
+		}
+
+		@Override
+		public boolean scrollForMore(Pagination pagination, int knownRows) {
+			return nextPage(pagination);
+		}
+	}
+}
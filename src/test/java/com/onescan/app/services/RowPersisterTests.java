@@ -0,0 +1,150 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.onescan.app.Entity.Commande;
+import com.onescan.app.Entity.Plateforme;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RowPersisterTests {
+
+	private static final Tenant TENANT = Tenant.env(Plateforme.THREESHAPE, null);
+
+	private CommandeStore commandeStore;
+	private SyncLeaseService syncLeases;
+	private SimpleMeterRegistry registry;
+	private RowPersister persister;
+
+	// Ligne de test : id et date de réception, id vide pour une ligne sans clé
+	private final Function<Map<String, String>, Commande> toCommande = row -> row.containsKey("incomplet") ? null
+			: new Commande(row.get("id").isEmpty() ? null : Long.valueOf(row.get("id")), "Dupont",
+					LocalDate.parse(row.get("date")), null, Plateforme.THREESHAPE, null, null, null, false);
+
+	@BeforeEach
+	void setUp() {
+		commandeStore = mock(CommandeStore.class);
+		syncLeases = mock(SyncLeaseService.class);
+		registry = new SimpleMeterRegistry();
+		persister = new RowPersister(commandeStore, syncLeases, new ScrapeMetrics(registry));
+		when(syncLeases.fenced(eq(TENANT.key()), any())).thenAnswer(invocation -> {
+			Supplier<?> write = invocation.getArgument(1);
+			return write.get();
+		});
+		when(commandeStore.upsert(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	void savesRowsUnderTheTenantLeaseAndFeedsTheRun() {
+		SyncRun run = new SyncRun(TENANT, null);
+
+		List<Commande> saved = persister.persist(TENANT,
+				List.of(row("12", "2025-03-02"), row("11", "2025-03-01")), toCommande, run);
+
+		assertEquals(2, saved.size());
+		verify(syncLeases).fenced(eq(TENANT.key()), any());
+		assertEquals(2, run.getSaved());
+		assertEquals(12L, run.getMaxExternalId());
+		assertEquals(LocalDate.of(2025, 3, 2), run.getNewestDateReception());
+	}
+
+	@Test
+	void skipsIncompleteKeylessAndOldRows() {
+		SyncRun run = new SyncRun(TENANT, LocalDate.of(2025, 3, 1));
+
+		List<Commande> saved = persister.persist(TENANT, List.of(row("12", "2025-03-02"), Map.of("incomplet", "1"),
+				row("", "2025-03-02"), row("10", "2025-02-20")), toCommande, run);
+
+		assertEquals(1, saved.size());
+		assertEquals(12L, saved.get(0).getExternalId());
+		assertTrue(run.isWatermarkReached(), "la ligne antérieure au watermark doit l'atteindre");
+		assertEquals(1.0, skipped("incomplet"));
+		assertEquals(1.0, skipped("sans_cle"));
+		assertEquals(1.0, skipped("watermark"));
+	}
+
+	@Test
+	void countsUnparseableRowsWithoutStopping() {
+		List<Commande> saved = persister.persist(TENANT, List.of(row("abc", "2025-03-02"), row("12", "2025-03-02")),
+				toCommande, null);
+
+		assertEquals(1, saved.size());
+		assertEquals(1.0, skipped("erreur"));
+	}
+
+	@Test
+	void doesNotWriteWhenNothingIsLeft() {
+		List<Commande> saved = persister.persist(TENANT, List.of(Map.of("incomplet", "1")), toCommande, null);
+
+		assertTrue(saved.isEmpty());
+		verify(commandeStore, never()).upsert(anyList());
+	}
+
+	@Test
+	void failedWriteFailsTheRun() {
+		when(commandeStore.upsert(anyList())).thenThrow(new IllegalStateException("base indisponible"));
+		SyncRun run = new SyncRun(TENANT, null);
+
+		List<Commande> saved = persister.persist(TENANT, List.of(row("12", "2025-03-02")), toCommande, run);
+
+		assertTrue(saved.isEmpty());
+		assertTrue(run.isFailed());
+		assertEquals("sauvegarde: base indisponible", run.getFailure());
+	}
+
+	@Test
+	void fullListCompletesTheRun() {
+		SyncRun run = new SyncRun(TENANT, null);
+
+		persister.persistAll(TENANT, List.of(row("12", "2025-03-02")), toCommande, run);
+
+		assertTrue(run.isComplete(), "une liste lue en une fois est lue jusqu'au bout");
+	}
+
+	@Test
+	void fullListWithFailedWriteStaysIncomplete() {
+		when(commandeStore.upsert(anyList())).thenThrow(new IllegalStateException("base indisponible"));
+		SyncRun run = new SyncRun(TENANT, null);
+
+		persister.persistAll(TENANT, List.of(row("12", "2025-03-02")), toCommande, run);
+
+		assertFalse(run.isComplete());
+	}
+
+	@Test
+	void lostLeaseStopsTheSync() {
+		when(syncLeases.fenced(eq(TENANT.key()), any())).thenThrow(new LeaseUnavailableException("bail perdu"));
+		SyncRun run = new SyncRun(TENANT, null);
+
+		assertThrows(LeaseUnavailableException.class,
+				() -> persister.persist(TENANT, List.of(row("12", "2025-03-02")), toCommande, run));
+		assertFalse(run.isFailed(), "le bail perdu est remonté, pas absorbé");
+	}
+
+	private double skipped(String reason) {
+		return registry.get("scrape.rows.skipped").tag("raison", reason).counter().count();
+	}
+
+	private static Map<String, String> row(String id, String date) {
+		return Map.of("id", id, "date", date);
+	}
+}
@@ -0,0 +1,166 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.onescan.app.Entity.Plateforme;
+import com.onescan.app.Entity.ScrapeJob;
+import com.onescan.app.Entity.ScrapeJobStatus;
+import com.onescan.app.Entity.ScrapeJobType;
+import com.onescan.app.repository.ScrapeJobRepository;
+
+class ScrapeJobQueueTests {
+
+	private static final String NODE = "node-a";
+
+	private ScrapeJobRepository repository;
+	private ScrapeJobQueue queue;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(ScrapeJobRepository.class);
+		queue = new ScrapeJobQueue(repository, new ClusterNode(NODE));
+		ReflectionTestUtils.setField(queue, "lease", Duration.ofMinutes(2));
+		ReflectionTestUtils.setField(queue, "maxAttempts", 3);
+		ReflectionTestUtils.setField(queue, "retryBackoff", Duration.ofSeconds(30));
+	}
+
+	@Test
+	void failReschedulesWithDoublingBackoff() {
+		assertRetryDelay(1, Duration.ofSeconds(30));
+		assertRetryDelay(2, Duration.ofSeconds(60));
+	}
+
+	@Test
+	void failOnLastAttemptBuriesJob() {
+		ScrapeJob job = runningJob(3);
+
+		queue.fail(job.getId(), "plateforme indisponible");
+
+		assertEquals(ScrapeJobStatus.DEAD, job.getStatus());
+		assertEquals("plateforme indisponible", job.getLastError());
+		assertNotNull(job.getFinishedAt());
+		assertNull(job.getLeaseOwner());
+		assertNull(job.getActiveKey());
+	}
+
+	@Test
+	void failIgnoresJobLeasedByAnotherNode() {
+		ScrapeJob job = runningJob(1);
+		job.setLeaseOwner("node-b");
+
+		queue.fail(job.getId(), "erreur");
+
+		assertEquals(ScrapeJobStatus.RUNNING, job.getStatus());
+		assertNull(job.getLastError());
+	}
+
+	@Test
+	void failTruncatesLongErrors() {
+		ScrapeJob job = runningJob(1);
+
+		queue.fail(job.getId(), "x".repeat(5000));
+
+		assertEquals(1000, job.getLastError().length());
+	}
+
+	@Test
+	void completeReleasesActiveKey() {
+		ScrapeJob job = runningJob(1);
+
+		queue.complete(job.getId());
+
+		assertEquals(ScrapeJobStatus.DONE, job.getStatus());
+		assertNull(job.getActiveKey());
+		assertNotNull(job.getFinishedAt());
+	}
+
+	@Test
+	void enqueueSetsActiveKeyForListSync() {
+		when(repository.saveAndFlush(any(ScrapeJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		Optional<ScrapeJob> job = queue.enqueue(ScrapeJobType.LIST_SYNC, tenant(), null);
+
+		assertTrue(job.isPresent());
+		assertEquals("LIST_SYNC:" + tenant().key(), job.get().getActiveKey());
+		assertEquals(ScrapeJobStatus.PENDING, job.get().getStatus());
+		assertEquals(3, job.get().getMaxAttempts());
+	}
+
+	@Test
+	void enqueueSkipsListSyncAlreadyActive() {
+		when(repository.existsByTypeAndTenantKeyAndStatusIn(any(), anyString(), anyCollection())).thenReturn(true);
+
+		assertFalse(queue.enqueue(ScrapeJobType.LIST_SYNC, tenant(), null).isPresent());
+	}
+
+	@Test
+	void enqueueLosesRaceOnActiveKey() {
+		when(repository.saveAndFlush(any(ScrapeJob.class)))
+				.thenThrow(new DataIntegrityViolationException("uk_scrape_job_active_key"));
+
+		assertFalse(queue.enqueue(ScrapeJobType.LIST_SYNC, tenant(), null).isPresent());
+	}
+
+	@Test
+	void commentFetchJobsHaveNoActiveKey() {
+		when(repository.saveAndFlush(any(ScrapeJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		Optional<ScrapeJob> job = queue.enqueue(ScrapeJobType.COMMENT_FETCH, tenant(), "[]");
+
+		assertTrue(job.isPresent());
+		assertNull(job.get().getActiveKey());
+	}
+
+	private void assertRetryDelay(int attempts, Duration expected) {
+		ScrapeJob job = runningJob(attempts);
+
+		LocalDateTime before = LocalDateTime.now();
+		queue.fail(job.getId(), "délai dépassé");
+		LocalDateTime after = LocalDateTime.now();
+
+		assertEquals(ScrapeJobStatus.PENDING, job.getStatus());
+		assertEquals("délai dépassé", job.getLastError());
+		assertNull(job.getLeaseOwner());
+		assertNull(job.getLeaseUntil());
+		assertFalse(job.getAvailableAt().isBefore(before.plus(expected)));
+		assertFalse(job.getAvailableAt().isAfter(after.plus(expected)));
+	}
+
+	private ScrapeJob runningJob(int attempts) {
+		ScrapeJob job = new ScrapeJob();
+		job.setId((long) attempts);
+		job.setType(ScrapeJobType.LIST_SYNC);
+		job.setStatus(ScrapeJobStatus.RUNNING);
+		job.setPlateforme(Plateforme.ITERO);
+		job.setTenantKey(tenant().key());
+		job.setActiveKey("LIST_SYNC:" + tenant().key());
+		job.setAttempts(attempts);
+		job.setMaxAttempts(3);
+		job.setLeaseOwner(NODE);
+		job.setLeaseUntil(LocalDateTime.now().plusMinutes(1));
+		when(repository.findById(job.getId())).thenReturn(Optional.of(job));
+		return job;
+	}
+
+	private static Tenant tenant() {
+		return Tenant.env(Plateforme.ITERO, null);
+	}
+}
@@ -0,0 +1,185 @@
+package com.onescan.app.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+class WebDriverPoolTests {
+
+	private static final Duration LONG = Duration.ofHours(1);
+
+	@Test
+	void borrowGivesEmptySlotWhenPoolIsEmpty() {
+		WebDriverPool pool = pool(2, LONG, LONG, driver -> true);
+
+		PooledDriver slot = pool.borrow();
+
+		assertNull(slot.getDriver());
+		assertEquals(1, pool.getActiveCount());
+		assertEquals(1, pool.getSlots().size());
+	}
+
+	@Test
+	void releasedBrowserIsReused() {
+		WebDriverPool pool = pool(2, LONG, LONG, driver -> true);
+		PooledDriver slot = pool.borrow();
+		WebDriver driver = mock(WebDriver.class);
+		slot.attach(driver, null, null);
+
+		pool.release(slot);
+
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(1, pool.getIdleCount());
+		PooledDriver again = pool.borrow();
+		assertSame(slot, again);
+		assertSame(driver, again.getDriver());
+		verify(driver, never()).quit();
+	}
+
+	@Test
+	void slotWithoutBrowserIsDroppedOnRelease() {
+		WebDriverPool pool = pool(2, LONG, LONG, driver -> true);
+
+		pool.release(pool.borrow());
+
+		assertEquals(0, pool.getIdleCount());
+		assertEquals(0, pool.getSlots().size());
+	}
+
+	@Test
+	void deadBrowserIsClosedOnBorrow() {
+		WebDriverPool pool = pool(2, LONG, LONG, driver -> false);
+		PooledDriver slot = pool.borrow();
+		WebDriver driver = mock(WebDriver.class);
+		slot.attach(driver, null, null);
+		pool.release(slot);
+
+		PooledDriver next = pool.borrow();
+
+		assertNotSame(slot, next);
+		assertNull(next.getDriver());
+		verify(driver).quit();
+	}
+
+	@Test
+	void expiredIdleBrowserIsNotReused() throws InterruptedException {
+		WebDriverPool pool = pool(2, Duration.ofMillis(20), LONG, driver -> true);
+		PooledDriver slot = pool.borrow();
+		WebDriver driver = mock(WebDriver.class);
+		slot.attach(driver, null, null);
+		pool.release(slot);
+		Thread.sleep(50);
+
+		PooledDriver next = pool.borrow();
+
+		assertNotSame(slot, next);
+		verify(driver).quit();
+	}
+
+	@Test
+	void browserPastLifetimeIsClosedOnRelease() throws InterruptedException {
+		WebDriverPool pool = pool(2, LONG, Duration.ofMillis(20), driver -> true);
+		PooledDriver slot = pool.borrow();
+		WebDriver driver = mock(WebDriver.class);
+		slot.attach(driver, null, null);
+		Thread.sleep(50);
+
+		pool.release(slot);
+
+		assertEquals(0, pool.getIdleCount());
+		verify(driver).quit();
+	}
+
+	@Test
+	void evictExpiredClosesOnlyExpiredIdleBrowsers() throws InterruptedException {
+		WebDriverPool pool = pool(2, Duration.ofMillis(20), LONG, driver -> true);
+		PooledDriver idle = pool.borrow();
+		PooledDriver busy = pool.borrow();
+		WebDriver idleDriver = mock(WebDriver.class);
+		WebDriver busyDriver = mock(WebDriver.class);
+		idle.attach(idleDriver, null, null);
+		busy.attach(busyDriver, null, null);
+		pool.release(idle);
+		Thread.sleep(50);
+
+		assertEquals(1, pool.evictExpired());
+
+		assertEquals(0, pool.getIdleCount());
+		assertEquals(1, pool.getActiveCount());
+		verify(idleDriver).quit();
+		verify(busyDriver, never()).quit();
+	}
+
+	@Test
+	void evictExpiredKeepsFreshBrowsers() {
+		WebDriverPool pool = pool(2, LONG, LONG, driver -> true);
+		PooledDriver slot = pool.borrow();
+		slot.attach(mock(WebDriver.class), null, null);
+		pool.release(slot);
+
+		assertEquals(0, pool.evictExpired());
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	void clearInvalidatesBorrowedBrowsers() {
+		WebDriverPool pool = pool(2, LONG, LONG, driver -> true);
+		PooledDriver slot = pool.borrow();
+		WebDriver driver = mock(WebDriver.class);
+		slot.attach(driver, null, null);
+
+		pool.clear();
+		pool.release(slot);
+
+		assertEquals(0, pool.getIdleCount());
+		verify(driver).quit();
+	}
+
+	@Test
+	void borrowTimesOutWhenPoolIsExhausted() {
+		WebDriverPool pool = new WebDriverPool("test", 1, LONG, LONG, Duration.ofMillis(50), driver -> true);
+		pool.borrow();
+
+		assertThrows(IllegalStateException.class, pool::borrow);
+	}
+
+	@Test
+	void closedPoolRefusesBorrow() {
+		WebDriverPool pool = pool(1, LONG, LONG, driver -> true);
+		pool.close();
+
+		assertThrows(IllegalStateException.class, pool::borrow);
+	}
+
+	@Test
+	void closeIfIdleKeepsPoolWithBorrowedSlot() {
+		WebDriverPool pool = pool(2, LONG, LONG, driver -> true);
+		PooledDriver slot = pool.borrow();
+
+		assertFalse(pool.closeIfIdle(), "un pool emprunté ne doit pas être fermé");
+		assertFalse(pool.isClosed());
+
+		pool.release(slot);
+		assertTrue(pool.closeIfIdle());
+		assertTrue(pool.isClosed());
+		assertThrows(IllegalStateException.class, pool::borrow);
+	}
+
+	private static WebDriverPool pool(int maxSize, Duration maxIdle, Duration maxLifetime,
+			Predicate<WebDriver> healthCheck) {
+		return new WebDriverPool("test", maxSize, maxIdle, maxLifetime, Duration.ofSeconds(1), healthCheck);
+	}
+}